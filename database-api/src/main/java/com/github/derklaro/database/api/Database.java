@@ -25,11 +25,14 @@ package com.github.derklaro.database.api;
 
 import com.github.derklaro.database.api.objects.DatabaseEntry;
 import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.concurrent.CompletableFuture;
@@ -42,6 +45,9 @@ public interface Database<V extends DatabaseObject> {
     @NotNull
     CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value);
 
+    @NotNull
+    CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries);
+
     @NotNull
     CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier);
 
@@ -51,6 +57,9 @@ public interface Database<V extends DatabaseObject> {
     @NotNull
     CompletableFuture<Void> remove(@NotNull String key);
 
+    @NotNull
+    CompletableFuture<Void> remove(@NotNull Collection<String> keys);
+
     @NotNull
     CompletableFuture<Void> removeAll(@NotNull String identifier);
 
@@ -69,6 +78,12 @@ public interface Database<V extends DatabaseObject> {
     @NotNull
     CompletableFuture<Collection<DatabaseEntry<V>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<V>> entryFilter);
 
+    @NotNull
+    CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query);
+
+    @NotNull
+    CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit);
+
     @NotNull
     CompletableFuture<Stream<DatabaseEntry<V>>> stream();
 
@@ -24,10 +24,12 @@
 package com.github.derklaro.database.api;
 
 import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.objects.DatabaseObjectFactory;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public interface DatabaseProvider {
 
@@ -35,7 +37,12 @@ public interface DatabaseProvider {
 
     @NotNull CompletableFuture<Boolean> closeConnection();
 
-    @NotNull <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type);
+    @NotNull
+    default <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type) {
+        return this.getDatabase(name, type, DatabaseObjectFactory.forType(type));
+    }
+
+    @NotNull <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory);
 
     @NotNull CompletableFuture<Boolean> existsDatabase(@NotNull String name);
 
@@ -24,6 +24,7 @@
 package com.github.derklaro.database.api.buffer;
 
 import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.objects.DatabaseObjectFactory;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.util.ByteProcessor;
@@ -33,26 +34,37 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
+/**
+ * A {@link ByteBuf} exposing the codec operations of {@link DataBuffer}. All codec operations are delegated to a
+ * {@link DataBuffer} over the same buffer, new code should use {@link DataBuffer} directly.
+ */
 public class ByteBuffer extends ByteBuf {
 
     public ByteBuffer(@NotNull ByteBuf wrapped) {
         this.wrapped = wrapped;
+        this.dataBuffer = new DataBuffer(wrapped);
     }
 
     private final ByteBuf wrapped;
 
+    private final DataBuffer dataBuffer;
+
+    @NotNull
+    public DataBuffer asDataBuffer() {
+        return this.dataBuffer;
+    }
+
     @NotNull
     public byte[] toByteArray() {
         byte[] bytes = new byte[this.readableBytes()];
@@ -62,57 +74,35 @@ public class ByteBuffer extends ByteBuf {
 
     @NotNull
     public ByteBuffer putByteArray(@NotNull byte[] bytes) {
-        this.putVarInt(bytes.length);
-        this.writeBytes(bytes);
+        this.dataBuffer.putByteArray(bytes);
         return this;
     }
 
     @NotNull
     public byte[] readByteArray() {
-        byte[] bytes = new byte[this.readVarInt()];
-        this.readBytes(bytes);
-        return bytes;
+        return this.dataBuffer.readByteArray();
     }
 
     @NotNull
     public ByteBuffer putUniqueId(@Nullable UUID uniqueId) {
-        this.writeBoolean(uniqueId == null);
-        if (uniqueId == null) {
-            return this;
-        }
-
-        this.writeLong(uniqueId.getMostSignificantBits());
-        this.writeLong(uniqueId.getLeastSignificantBits());
+        this.dataBuffer.putUniqueId(uniqueId);
         return this;
     }
 
     @NotNull
     public Optional<UUID> readUniqueId() {
-        if (this.readBoolean()) {
-            return Optional.empty();
-        }
-
-        return Optional.of(new UUID(this.readLong(), this.readLong()));
+        return Optional.ofNullable(this.dataBuffer.readUniqueId());
     }
 
     @NotNull
     public ByteBuffer putString(@Nullable String string) {
-        this.writeBoolean(string == null);
-        if (string == null) {
-            return this;
-        }
-
-        this.putByteArray(string.getBytes(StandardCharsets.UTF_8));
+        this.dataBuffer.putString(string);
         return this;
     }
 
     @NotNull
     public Optional<String> readString() {
-        if (this.readBoolean()) {
-            return Optional.empty();
-        }
-
-        return Optional.of(new String(this.readByteArray(), StandardCharsets.UTF_8));
+        return Optional.ofNullable(this.dataBuffer.readString());
     }
 
     @NotNull
@@ -127,11 +117,16 @@ public class ByteBuffer extends ByteBuf {
 
     @NotNull
     public <T extends DatabaseObject> Collection<T> readObjects(@NotNull Class<T> type) {
+        return this.readObjects(DatabaseObjectFactory.forType(type));
+    }
+
+    @NotNull
+    public <T extends DatabaseObject> Collection<T> readObjects(@NotNull Supplier<T> factory) {
         int size = this.readVarInt();
-        Collection<T> out = new ArrayList<>(size);
+        Collection<T> out = new ArrayList<>(Math.min(size, this.readableBytes()));
 
         for (int i = 0; i < size; i++) {
-            T object = this.deserializeObject0(type);
+            T object = this.deserializeObject0(factory);
             if (object == null) {
                 return out;
             }
@@ -155,59 +150,103 @@ public class ByteBuffer extends ByteBuf {
 
     @NotNull
     public <T extends DatabaseObject> Optional<T> readObject(@NotNull Class<T> type) {
+        return this.readObject(DatabaseObjectFactory.forType(type));
+    }
+
+    @NotNull
+    public <T extends DatabaseObject> Optional<T> readObject(@NotNull Supplier<T> factory) {
         if (this.readBoolean()) {
             return Optional.empty();
         }
 
-        return Optional.ofNullable(this.deserializeObject0(type));
+        return Optional.ofNullable(this.deserializeObject0(factory));
     }
 
     @Nullable
-    private <T extends DatabaseObject> T deserializeObject0(@NotNull Class<T> type) {
+    private <T extends DatabaseObject> T deserializeObject0(@NotNull Supplier<T> factory) {
+        T instance;
         try {
-            T instance = type.getDeclaredConstructor().newInstance();
-            instance.deserialize(this);
-            return instance;
-        } catch (final NoSuchMethodException exception) {
-            System.err.println("Missing NoArgsConstructor in object class " + type.getName());
-            return null;
-        } catch (final InstantiationException | IllegalAccessException | InvocationTargetException exception) {
+            instance = factory.get();
+        } catch (final IllegalStateException exception) {
             exception.printStackTrace();
             return null;
         }
+
+        instance.deserialize(this);
+        return instance;
     }
 
     @NotNull
     public ByteBuffer putVarInt(int value) {
-        do {
-            byte temp = (byte) (value & 0b01111111);
-            value >>>= 7;
-            if (value != 0) {
-                temp |= 0b10000000;
-            }
+        this.dataBuffer.putVarInt(value);
+        return this;
+    }
 
-            this.writeByte(temp);
-        } while (value != 0);
+    public int readVarInt() {
+        return this.dataBuffer.readVarInt();
+    }
 
+    @NotNull
+    public ByteBuffer putSignedVarInt(int value) {
+        this.dataBuffer.putSignedVarInt(value);
         return this;
     }
 
-    public int readVarInt() {
-        int numRead = 0;
-        int result = 0;
-        byte read;
+    public int readSignedVarInt() {
+        return this.dataBuffer.readSignedVarInt();
+    }
 
-        do {
-            read = this.readByte();
-            int value = (read & 0b01111111);
-            result |= (value << (7 * numRead));
+    @NotNull
+    public ByteBuffer putVarLong(long value) {
+        this.dataBuffer.putVarLong(value);
+        return this;
+    }
 
-            if (numRead++ > 5) {
-                throw new RuntimeException("VarInt is too big");
-            }
-        } while ((read & 0b10000000) != 0);
+    public long readVarLong() {
+        return this.dataBuffer.readVarLong();
+    }
 
-        return result;
+    @NotNull
+    public ByteBuffer putSignedVarLong(long value) {
+        this.dataBuffer.putSignedVarLong(value);
+        return this;
+    }
+
+    public long readSignedVarLong() {
+        return this.dataBuffer.readSignedVarLong();
+    }
+
+    @NotNull
+    public ByteBuffer putIntArray(@NotNull int[] values) {
+        this.dataBuffer.putIntArray(values);
+        return this;
+    }
+
+    @NotNull
+    public int[] readIntArray() {
+        return this.dataBuffer.readIntArray();
+    }
+
+    @NotNull
+    public ByteBuffer putLongArray(@NotNull long[] values) {
+        this.dataBuffer.putLongArray(values);
+        return this;
+    }
+
+    @NotNull
+    public long[] readLongArray() {
+        return this.dataBuffer.readLongArray();
+    }
+
+    @NotNull
+    public ByteBuffer putUniqueIds(@NotNull UUID[] uniqueIds) {
+        this.dataBuffer.putUniqueIds(uniqueIds);
+        return this;
+    }
+
+    @NotNull
+    public UUID[] readUniqueIds() {
+        return this.dataBuffer.readUniqueIds();
     }
 
     @Override
@@ -0,0 +1,563 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.buffer;
+
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.objects.DatabaseObjectFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * The reader and writer used to (de-)serialize {@link DatabaseObject}s. Unlike {@link ByteBuffer} this class only
+ * exposes the codec operations and is final, so the JIT can inline every call down to the underlying buffer. Variable
+ * length numbers and arrays are written with absolute index access, directly into the backing array if there is one.
+ * <p>
+ * The wire format is the same as the one of {@link ByteBuffer}, both types can be used on the same data. Nullable
+ * values are returned as {@code null} instead of an {@link java.util.Optional} to keep the read path allocation free.
+ */
+public final class DataBuffer {
+
+    private static final int MAX_VAR_INT_SIZE = 5;
+    private static final int MAX_VAR_LONG_SIZE = 10;
+
+    public DataBuffer(@NotNull ByteBuf buffer) {
+        this.buffer = buffer;
+    }
+
+    private final ByteBuf buffer;
+
+    @NotNull
+    public ByteBuf getBuffer() {
+        return this.buffer;
+    }
+
+    public int readableBytes() {
+        return this.buffer.readableBytes();
+    }
+
+    public boolean isReadable() {
+        return this.buffer.isReadable();
+    }
+
+    @NotNull
+    public DataBuffer putBoolean(boolean value) {
+        this.buffer.writeBoolean(value);
+        return this;
+    }
+
+    public boolean readBoolean() {
+        return this.buffer.readBoolean();
+    }
+
+    @NotNull
+    public DataBuffer putByte(int value) {
+        this.buffer.writeByte(value);
+        return this;
+    }
+
+    public byte readByte() {
+        return this.buffer.readByte();
+    }
+
+    @NotNull
+    public DataBuffer putShort(int value) {
+        this.buffer.writeShort(value);
+        return this;
+    }
+
+    public short readShort() {
+        return this.buffer.readShort();
+    }
+
+    @NotNull
+    public DataBuffer putInt(int value) {
+        this.buffer.writeInt(value);
+        return this;
+    }
+
+    public int readInt() {
+        return this.buffer.readInt();
+    }
+
+    @NotNull
+    public DataBuffer putLong(long value) {
+        this.buffer.writeLong(value);
+        return this;
+    }
+
+    public long readLong() {
+        return this.buffer.readLong();
+    }
+
+    @NotNull
+    public DataBuffer putFloat(float value) {
+        this.buffer.writeFloat(value);
+        return this;
+    }
+
+    public float readFloat() {
+        return this.buffer.readFloat();
+    }
+
+    @NotNull
+    public DataBuffer putDouble(double value) {
+        this.buffer.writeDouble(value);
+        return this;
+    }
+
+    public double readDouble() {
+        return this.buffer.readDouble();
+    }
+
+    @NotNull
+    public DataBuffer putByteArray(@NotNull byte[] bytes) {
+        this.putVarInt(bytes.length);
+        this.buffer.writeBytes(bytes);
+        return this;
+    }
+
+    @NotNull
+    public byte[] readByteArray() {
+        byte[] bytes = new byte[this.readArrayLength(Byte.BYTES)];
+        this.buffer.readBytes(bytes);
+        return bytes;
+    }
+
+    @NotNull
+    public DataBuffer putVarInt(int value) {
+        ByteBuf buffer = this.buffer;
+        int size = (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+        buffer.ensureWritable(size);
+
+        int index = buffer.writerIndex();
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset() + index;
+            while ((value & ~0b01111111) != 0) {
+                array[offset++] = (byte) ((value & 0b01111111) | 0b10000000);
+                value >>>= 7;
+            }
+
+            array[offset] = (byte) value;
+        } else {
+            int position = index;
+            while ((value & ~0b01111111) != 0) {
+                buffer.setByte(position++, (value & 0b01111111) | 0b10000000);
+                value >>>= 7;
+            }
+
+            buffer.setByte(position, value);
+        }
+
+        buffer.writerIndex(index + size);
+        return this;
+    }
+
+    public int readVarInt() {
+        ByteBuf buffer = this.buffer;
+        int start = buffer.readerIndex();
+        int limit = Math.min(buffer.writerIndex(), start + MAX_VAR_INT_SIZE);
+
+        int result = 0;
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            for (int index = start, shift = 0; index < limit; shift += 7) {
+                byte read = array[offset + index++];
+                result |= (read & 0b01111111) << shift;
+                if (read >= 0) {
+                    buffer.readerIndex(index);
+                    return result;
+                }
+            }
+        } else {
+            for (int index = start, shift = 0; index < limit; shift += 7) {
+                byte read = buffer.getByte(index++);
+                result |= (read & 0b01111111) << shift;
+                if (read >= 0) {
+                    buffer.readerIndex(index);
+                    return result;
+                }
+            }
+        }
+
+        throw this.varNumberException(start, limit, MAX_VAR_INT_SIZE, "VarInt");
+    }
+
+    @NotNull
+    public DataBuffer putSignedVarInt(int value) {
+        return this.putVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public int readSignedVarInt() {
+        int value = this.readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @NotNull
+    public DataBuffer putVarLong(long value) {
+        ByteBuf buffer = this.buffer;
+        int size = (70 - Long.numberOfLeadingZeros(value | 1)) / 7;
+        buffer.ensureWritable(size);
+
+        int index = buffer.writerIndex();
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset() + index;
+            while ((value & ~0b01111111L) != 0) {
+                array[offset++] = (byte) ((value & 0b01111111) | 0b10000000);
+                value >>>= 7;
+            }
+
+            array[offset] = (byte) value;
+        } else {
+            int position = index;
+            while ((value & ~0b01111111L) != 0) {
+                buffer.setByte(position++, (int) (value & 0b01111111) | 0b10000000);
+                value >>>= 7;
+            }
+
+            buffer.setByte(position, (int) value);
+        }
+
+        buffer.writerIndex(index + size);
+        return this;
+    }
+
+    public long readVarLong() {
+        ByteBuf buffer = this.buffer;
+        int start = buffer.readerIndex();
+        int limit = Math.min(buffer.writerIndex(), start + MAX_VAR_LONG_SIZE);
+
+        long result = 0;
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            for (int index = start, shift = 0; index < limit; shift += 7) {
+                byte read = array[offset + index++];
+                result |= (long) (read & 0b01111111) << shift;
+                if (read >= 0) {
+                    buffer.readerIndex(index);
+                    return result;
+                }
+            }
+        } else {
+            for (int index = start, shift = 0; index < limit; shift += 7) {
+                byte read = buffer.getByte(index++);
+                result |= (long) (read & 0b01111111) << shift;
+                if (read >= 0) {
+                    buffer.readerIndex(index);
+                    return result;
+                }
+            }
+        }
+
+        throw this.varNumberException(start, limit, MAX_VAR_LONG_SIZE, "VarLong");
+    }
+
+    @NotNull
+    public DataBuffer putSignedVarLong(long value) {
+        return this.putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public long readSignedVarLong() {
+        long value = this.readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @NotNull
+    public DataBuffer putUniqueId(@Nullable UUID uniqueId) {
+        ByteBuf buffer = this.buffer;
+        if (uniqueId == null) {
+            buffer.writeBoolean(true);
+            return this;
+        }
+
+        buffer.ensureWritable(1 + 2 * Long.BYTES);
+
+        int index = buffer.writerIndex();
+        buffer.setBoolean(index, false);
+        buffer.setLong(index + 1, uniqueId.getMostSignificantBits());
+        buffer.setLong(index + 1 + Long.BYTES, uniqueId.getLeastSignificantBits());
+
+        buffer.writerIndex(index + 1 + 2 * Long.BYTES);
+        return this;
+    }
+
+    @Nullable
+    public UUID readUniqueId() {
+        ByteBuf buffer = this.buffer;
+        if (buffer.readBoolean()) {
+            return null;
+        }
+
+        int index = buffer.readerIndex();
+        if (buffer.writerIndex() - index < 2 * Long.BYTES) {
+            throw new IndexOutOfBoundsException("UniqueId exceeds the readable bytes " + buffer.readableBytes());
+        }
+
+        UUID uniqueId = new UUID(buffer.getLong(index), buffer.getLong(index + Long.BYTES));
+        buffer.readerIndex(index + 2 * Long.BYTES);
+        return uniqueId;
+    }
+
+    @NotNull
+    public DataBuffer putString(@Nullable String string) {
+        ByteBuf buffer = this.buffer;
+        buffer.writeBoolean(string == null);
+        if (string == null) {
+            return this;
+        }
+
+        if (string.isEmpty()) {
+            buffer.writeByte(0);
+            return this;
+        }
+
+        // encode straight into the buffer; the wire format is a varint byte length followed by the utf-8 bytes
+        int utf8Length = ByteBufUtil.utf8Bytes(string);
+        this.putVarInt(utf8Length);
+        if (utf8Length == string.length()) {
+            buffer.writeCharSequence(string, StandardCharsets.US_ASCII);
+        } else {
+            ByteBufUtil.reserveAndWriteUtf8(buffer, string, utf8Length);
+        }
+
+        return this;
+    }
+
+    @Nullable
+    public String readString() {
+        ByteBuf buffer = this.buffer;
+        if (buffer.readBoolean()) {
+            return null;
+        }
+
+        int length = this.readArrayLength(Byte.BYTES);
+        if (length == 0) {
+            return "";
+        }
+
+        int index = buffer.readerIndex();
+        String string = buffer.toString(index, length, StandardCharsets.UTF_8);
+        buffer.readerIndex(index + length);
+        return string;
+    }
+
+    @NotNull
+    public DataBuffer putIntArray(@NotNull int[] values) {
+        this.putVarInt(values.length);
+
+        ByteBuf buffer = this.buffer;
+        buffer.ensureWritable(values.length * Integer.BYTES);
+
+        int index = buffer.writerIndex();
+        for (int value : values) {
+            buffer.setInt(index, value);
+            index += Integer.BYTES;
+        }
+
+        buffer.writerIndex(index);
+        return this;
+    }
+
+    @NotNull
+    public int[] readIntArray() {
+        int length = this.readArrayLength(Integer.BYTES);
+        int[] values = new int[length];
+
+        ByteBuf buffer = this.buffer;
+        int index = buffer.readerIndex();
+        for (int i = 0; i < length; i++) {
+            values[i] = buffer.getInt(index);
+            index += Integer.BYTES;
+        }
+
+        buffer.readerIndex(index);
+        return values;
+    }
+
+    @NotNull
+    public DataBuffer putLongArray(@NotNull long[] values) {
+        this.putVarInt(values.length);
+
+        ByteBuf buffer = this.buffer;
+        buffer.ensureWritable(values.length * Long.BYTES);
+
+        int index = buffer.writerIndex();
+        for (long value : values) {
+            buffer.setLong(index, value);
+            index += Long.BYTES;
+        }
+
+        buffer.writerIndex(index);
+        return this;
+    }
+
+    @NotNull
+    public long[] readLongArray() {
+        int length = this.readArrayLength(Long.BYTES);
+        long[] values = new long[length];
+
+        ByteBuf buffer = this.buffer;
+        int index = buffer.readerIndex();
+        for (int i = 0; i < length; i++) {
+            values[i] = buffer.getLong(index);
+            index += Long.BYTES;
+        }
+
+        buffer.readerIndex(index);
+        return values;
+    }
+
+    @NotNull
+    public DataBuffer putUniqueIds(@NotNull UUID[] uniqueIds) {
+        this.putVarInt(uniqueIds.length);
+
+        ByteBuf buffer = this.buffer;
+        buffer.ensureWritable(uniqueIds.length * 2 * Long.BYTES);
+
+        int index = buffer.writerIndex();
+        for (UUID uniqueId : uniqueIds) {
+            buffer.setLong(index, uniqueId.getMostSignificantBits());
+            buffer.setLong(index + Long.BYTES, uniqueId.getLeastSignificantBits());
+            index += 2 * Long.BYTES;
+        }
+
+        buffer.writerIndex(index);
+        return this;
+    }
+
+    @NotNull
+    public UUID[] readUniqueIds() {
+        int length = this.readArrayLength(2 * Long.BYTES);
+        UUID[] uniqueIds = new UUID[length];
+
+        ByteBuf buffer = this.buffer;
+        int index = buffer.readerIndex();
+        for (int i = 0; i < length; i++) {
+            uniqueIds[i] = new UUID(buffer.getLong(index), buffer.getLong(index + Long.BYTES));
+            index += 2 * Long.BYTES;
+        }
+
+        buffer.readerIndex(index);
+        return uniqueIds;
+    }
+
+    @NotNull
+    public <T extends DatabaseObject> DataBuffer putObject(@Nullable T object) {
+        this.buffer.writeBoolean(object == null);
+        if (object != null) {
+            object.serialize(this);
+        }
+
+        return this;
+    }
+
+    @Nullable
+    public <T extends DatabaseObject> T readObject(@NotNull Class<T> type) {
+        return this.readObject(DatabaseObjectFactory.forType(type));
+    }
+
+    @Nullable
+    public <T extends DatabaseObject> T readObject(@NotNull Supplier<T> factory) {
+        if (this.buffer.readBoolean()) {
+            return null;
+        }
+
+        return this.deserializeObject0(factory);
+    }
+
+    @NotNull
+    public <T extends DatabaseObject> DataBuffer putObjects(@NotNull Collection<T> objects) {
+        this.putVarInt(objects.size());
+        for (T object : objects) {
+            object.serialize(this);
+        }
+
+        return this;
+    }
+
+    @NotNull
+    public <T extends DatabaseObject> Collection<T> readObjects(@NotNull Class<T> type) {
+        return this.readObjects(DatabaseObjectFactory.forType(type));
+    }
+
+    @NotNull
+    public <T extends DatabaseObject> Collection<T> readObjects(@NotNull Supplier<T> factory) {
+        int size = this.readVarInt();
+        Collection<T> out = new ArrayList<>(Math.min(size, this.buffer.readableBytes()));
+
+        for (int i = 0; i < size; i++) {
+            T object = this.deserializeObject0(factory);
+            if (object == null) {
+                return out;
+            }
+
+            out.add(object);
+        }
+
+        return out;
+    }
+
+    @Nullable
+    private <T extends DatabaseObject> T deserializeObject0(@NotNull Supplier<T> factory) {
+        T instance;
+        try {
+            instance = factory.get();
+        } catch (final IllegalStateException exception) {
+            exception.printStackTrace();
+            return null;
+        }
+
+        instance.deserialize(this);
+        return instance;
+    }
+
+    private int readArrayLength(int elementSize) {
+        int length = this.readVarInt();
+        if (length < 0 || (long) length * elementSize > this.buffer.readableBytes()) {
+            throw new IndexOutOfBoundsException("Array of " + length + " elements exceeds the readable bytes " + this.buffer.readableBytes());
+        }
+
+        return length;
+    }
+
+    @NotNull
+    private RuntimeException varNumberException(int start, int limit, int maxSize, @NotNull String type) {
+        if (limit - start < maxSize) {
+            return new IndexOutOfBoundsException(type + " exceeds the readable bytes " + (limit - start));
+        }
+
+        return new RuntimeException(type + " is too big");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.cache;
+
+public class CacheStatistics {
+
+    public CacheStatistics(long hitCount, long missCount, long evictionCount, long size, long weight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.weight = weight;
+    }
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final long size;
+
+    private final long weight;
+
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    public long getRequestCount() {
+        return this.hitCount + this.missCount;
+    }
+
+    public double getHitRate() {
+        long requests = this.getRequestCount();
+        return requests == 0 ? 1D : (double) this.hitCount / requests;
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public long getWeight() {
+        return this.weight;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics(hits=" + this.hitCount + ", misses=" + this.missCount + ", evictions=" + this.evictionCount
+                + ", size=" + this.size + ", weight=" + this.weight + ")";
+    }
+}
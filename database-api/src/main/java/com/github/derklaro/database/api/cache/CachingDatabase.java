@@ -0,0 +1,314 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.cache;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+public class CachingDatabase<V extends DatabaseObject> implements Database<V> {
+
+    public CachingDatabase(@NotNull Database<V> delegate, long maximumSize) {
+        this(delegate, maximumSize, null, 0, TimeUnit.NANOSECONDS, false);
+    }
+
+    public CachingDatabase(@NotNull Database<V> delegate, long maximumWeight, @Nullable ToLongFunction<V> weigher,
+                           long expireAfterWrite, @NotNull TimeUnit timeUnit, boolean cacheMissingKeys) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Maximum weight must be positive, got " + maximumWeight);
+        }
+
+        this.delegate = delegate;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher == null ? value -> 1 : weigher;
+        this.expireAfterWriteNanos = timeUnit.toNanos(expireAfterWrite);
+        this.cacheMissingKeys = cacheMissingKeys;
+    }
+
+    private final Database<V> delegate;
+
+    private final long maximumWeight;
+
+    private final ToLongFunction<V> weigher;
+
+    private final long expireAfterWriteNanos;
+
+    private final boolean cacheMissingKeys;
+
+    private final Map<String, CachedValue<V>> cache = new LinkedHashMap<>(16, 0.75F, true);
+
+    // the latest load of each key, a write to a key removes its token so that the running load is not stored
+    private final Map<String, Object> loads = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private long weight;
+
+    @Override
+    public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value) {
+        return this.invalidating(Collections.singleton(key), () -> this.delegate.insert(key, identifier, value));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries) {
+        return this.invalidating(entries.keySet(), () -> this.delegate.insertAll(entries));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier) {
+        if (identifier != null) {
+            // lookups which may match by identifier can not be answered from a cache keyed by key
+            return this.delegate.get(key, identifier);
+        }
+
+        Object loadToken = new Object();
+        synchronized (this.cache) {
+            CachedValue<V> cached = this.cache.get(key);
+            if (cached != null) {
+                if (cached.isExpired()) {
+                    this.removeCached(key);
+                } else {
+                    this.hits.increment();
+                    return CompletableFuture.completedFuture(Optional.ofNullable(cached.value));
+                }
+            }
+
+            this.loads.put(key, loadToken);
+        }
+
+        this.misses.increment();
+        return this.delegate.get(key, null).whenComplete((result, throwable) -> {
+            if (result != null && (result.isPresent() || this.cacheMissingKeys)) {
+                this.store(key, result.orElse(null), loadToken);
+            } else {
+                synchronized (this.cache) {
+                    this.loads.remove(key, loadToken);
+                }
+            }
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
+        return this.invalidating(Collections.singleton(key), () -> this.delegate.updateIdentifier(key, identifier));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
+        return this.invalidating(Collections.singleton(key), () -> this.delegate.remove(key));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        return this.invalidating(keys, () -> this.delegate.remove(keys));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
+        return this.invalidating(null, () -> this.delegate.removeAll(identifier));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<V>> sortByIdentifier(int limit) {
+        return this.delegate.sortByIdentifier(limit);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getKeys() {
+        return this.delegate.getKeys();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries() {
+        return this.delegate.getEntries();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries(@NotNull Predicate<String> identifierFilter) {
+        return this.delegate.getEntries(identifierFilter);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<V>> entryFilter) {
+        return this.delegate.getEntriesFiltered(entryFilter);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query) {
+        return this.delegate.query(query);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit) {
+        return this.delegate.page(afterKey, limit);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
+        return this.delegate.stream();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> clear() {
+        return this.invalidating(null, this.delegate::clear);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> getSize() {
+        return this.delegate.getSize();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Iterator<V>> iterator() {
+        return this.delegate.iterator();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Spliterator<V>> spliterator() {
+        return this.delegate.spliterator();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<V> consumer) {
+        return this.delegate.forEach(consumer);
+    }
+
+    public void invalidate(@NotNull String key) {
+        this.invalidateKeys(Collections.singleton(key));
+    }
+
+    public void invalidateAll() {
+        this.invalidateKeys(null);
+    }
+
+    @NotNull
+    public CacheStatistics getStatistics() {
+        synchronized (this.cache) {
+            return new CacheStatistics(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.cache.size(), this.weight);
+        }
+    }
+
+    @NotNull
+    public Database<V> getDelegate() {
+        return this.delegate;
+    }
+
+    @NotNull
+    private CompletableFuture<Void> invalidating(@Nullable Collection<String> keys, @NotNull Supplier<CompletableFuture<Void>> operation) {
+        // invalidate before and after the write; the second pass drops values loaded while the write was in flight
+        this.invalidateKeys(keys);
+        return operation.get().whenComplete((result, throwable) -> this.invalidateKeys(keys));
+    }
+
+    private void invalidateKeys(@Nullable Collection<String> keys) {
+        synchronized (this.cache) {
+            if (keys == null) {
+                this.cache.clear();
+                this.loads.clear();
+                this.weight = 0;
+                return;
+            }
+
+            for (String key : keys) {
+                this.removeCached(key);
+                this.loads.remove(key);
+            }
+        }
+    }
+
+    private void store(@NotNull String key, @Nullable V value, @NotNull Object loadToken) {
+        long valueWeight = value == null ? 1 : Math.max(1, this.weigher.applyAsLong(value));
+        long expiresAt = this.expireAfterWriteNanos > 0 ? System.nanoTime() + this.expireAfterWriteNanos : 0;
+        synchronized (this.cache) {
+            // the key was written or loaded again since this load started
+            if (!this.loads.remove(key, loadToken) || valueWeight > this.maximumWeight) {
+                return;
+            }
+
+            CachedValue<V> previous = this.cache.put(key, new CachedValue<>(value, valueWeight, expiresAt));
+            if (previous != null) {
+                this.weight -= previous.weight;
+            }
+
+            this.weight += valueWeight;
+            Iterator<CachedValue<V>> iterator = this.cache.values().iterator();
+            while (this.weight > this.maximumWeight && iterator.hasNext()) {
+                this.weight -= iterator.next().weight;
+                iterator.remove();
+                this.evictions.increment();
+            }
+        }
+    }
+
+    private void removeCached(@NotNull String key) {
+        CachedValue<V> removed = this.cache.remove(key);
+        if (removed != null) {
+            this.weight -= removed.weight;
+        }
+    }
+
+    private static final class CachedValue<V> {
+
+        private CachedValue(@Nullable V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        private final V value;
+
+        private final long weight;
+
+        private final long expiresAt;
+
+        private boolean isExpired() {
+            return this.expiresAt != 0 && System.nanoTime() - this.expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.codec;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+final class DeflateCompressor implements Compressor {
+
+    // deflaters hold native memory which is only released by end(), so only a bounded number of them is kept
+    private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final int MAXIMUM_CHUNK_SIZE = 64 * 1024;
+
+    @Override
+    public void compress(@NotNull ByteBuf source, @NotNull ByteBuf target) {
+        Deflater deflater = DEFLATERS.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        }
+
+        try {
+            byte[] input = toArray(source);
+            deflater.setInput(input, source.hasArray() ? source.arrayOffset() + source.readerIndex() : 0, source.readableBytes());
+            deflater.finish();
+
+            if (target.hasArray()) {
+                while (!deflater.finished()) {
+                    target.ensureWritable(Math.max(64, source.readableBytes() / 2));
+                    int written = deflater.deflate(target.array(), target.arrayOffset() + target.writerIndex(), target.writableBytes());
+                    target.writerIndex(target.writerIndex() + written);
+                }
+            } else {
+                // direct targets have no array and the ByteBuffer overloads of the deflater require java 11
+                byte[] chunk = new byte[Math.max(64, Math.min(source.readableBytes() / 2, MAXIMUM_CHUNK_SIZE))];
+                while (!deflater.finished()) {
+                    int written = deflater.deflate(chunk);
+                    target.writeBytes(chunk, 0, written);
+                }
+            }
+
+            source.skipBytes(source.readableBytes());
+        } finally {
+            deflater.reset();
+            if (!DEFLATERS.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    @Override
+    public void decompress(@NotNull ByteBuf source, int decompressedLength, @NotNull ByteBuf target) {
+        Inflater inflater = INFLATERS.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+
+        try {
+            byte[] input = toArray(source);
+            inflater.setInput(input, source.hasArray() ? source.arrayOffset() + source.readerIndex() : 0, source.readableBytes());
+
+            target.ensureWritable(decompressedLength);
+            if (target.hasArray()) {
+                int read = inflater.inflate(target.array(), target.arrayOffset() + target.writerIndex(), decompressedLength);
+                checkLength(read, decompressedLength);
+                target.writerIndex(target.writerIndex() + read);
+            } else {
+                byte[] output = new byte[decompressedLength];
+                int read = inflater.inflate(output);
+                checkLength(read, decompressedLength);
+                target.writeBytes(output);
+            }
+
+            source.skipBytes(source.readableBytes());
+        } catch (final DataFormatException exception) {
+            throw new IllegalStateException("Malformed deflate data", exception);
+        } finally {
+            inflater.reset();
+            if (!INFLATERS.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static void checkLength(int read, int decompressedLength) {
+        if (read != decompressedLength) {
+            throw new IllegalStateException("Expected " + decompressedLength + " decompressed bytes, got " + read);
+        }
+    }
+
+    @NotNull
+    private static byte[] toArray(@NotNull ByteBuf buffer) {
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+
+        byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        return bytes;
+    }
+}
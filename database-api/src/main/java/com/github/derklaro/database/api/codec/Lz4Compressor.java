@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.codec;
+
+import io.netty.buffer.ByteBuf;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+final class Lz4Compressor implements Compressor {
+
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    @Override
+    public void compress(@NotNull ByteBuf source, @NotNull ByteBuf target) {
+        int length = source.readableBytes();
+        target.ensureWritable(this.compressor.maxCompressedLength(length));
+
+        ByteBuffer input = source.nioBuffer();
+        ByteBuffer output = target.nioBuffer(target.writerIndex(), target.writableBytes());
+
+        int written = this.compressor.compress(input, input.position(), length, output, output.position(), output.remaining());
+        target.writerIndex(target.writerIndex() + written);
+        source.skipBytes(length);
+    }
+
+    @Override
+    public void decompress(@NotNull ByteBuf source, int decompressedLength, @NotNull ByteBuf target) {
+        target.ensureWritable(decompressedLength);
+
+        ByteBuffer input = source.nioBuffer();
+        ByteBuffer output = target.nioBuffer(target.writerIndex(), decompressedLength);
+
+        int read = this.decompressor.decompress(input, input.position(), output, output.position(), decompressedLength);
+        target.writerIndex(target.writerIndex() + decompressedLength);
+        source.skipBytes(read);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Optionally compresses serialized values. Every value written by a codec, including {@link #none()}, starts with a
+ * magic number followed by the algorithm, so a value can always be decoded regardless of the codec which is currently
+ * configured for a table. Values without that header were written before codecs existed and are read as they are. A
+ * legacy value which happens to start with the magic number and a known algorithm cannot be told apart from an encoded
+ * one, such tables should be rewritten once to give every row a header.
+ */
+public final class ValueCodec {
+
+    private static final int MAGIC = 0xDBC0DEC0;
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+
+    private static final byte STORED = 0;
+    private static final byte DEFLATE = 1;
+    private static final byte LZ4 = 2;
+
+    // the worst case expansion of the algorithms, a larger decompressed length can only come from a malformed value
+    private static final int MAXIMUM_DEFLATE_RATIO = 1032;
+    private static final int MAXIMUM_LZ4_RATIO = 255;
+
+    private static final ValueCodec NONE = new ValueCodec(STORED, 0);
+
+    private ValueCodec(byte algorithm, int threshold) {
+        this.algorithm = algorithm;
+        this.threshold = threshold;
+    }
+
+    private final byte algorithm;
+
+    private final int threshold;
+
+    @NotNull
+    public static ValueCodec none() {
+        return NONE;
+    }
+
+    @NotNull
+    public static ValueCodec deflate(int threshold) {
+        return new ValueCodec(DEFLATE, threshold);
+    }
+
+    @NotNull
+    public static ValueCodec lz4(int threshold) {
+        return new ValueCodec(LZ4, threshold);
+    }
+
+    public boolean isEnabled() {
+        return this.algorithm != STORED;
+    }
+
+    public void encode(@NotNull ByteBuf source, @NotNull ByteBuf target) {
+        int length = source.readableBytes();
+        if (this.isEnabled() && length >= this.threshold) {
+            int start = target.writerIndex();
+            target.writeInt(MAGIC);
+            target.writeByte(this.algorithm);
+            target.writeInt(length);
+
+            int readerIndex = source.readerIndex();
+            compressor(this.algorithm).compress(source, target);
+            if (target.writerIndex() - start < length + HEADER_SIZE) {
+                return;
+            }
+
+            // the data did not shrink, store it uncompressed instead
+            source.readerIndex(readerIndex);
+            target.writerIndex(start);
+        }
+
+        target.writeInt(MAGIC);
+        target.writeByte(STORED);
+        target.writeBytes(source);
+    }
+
+    @NotNull
+    public ByteBuf decode(@NotNull ByteBuf source, @NotNull ByteBufAllocator allocator) {
+        // the header is checked even if this codec is disabled, the table might contain values of an earlier codec
+        int readerIndex = source.readerIndex();
+        if (source.readableBytes() < HEADER_SIZE || source.getInt(readerIndex) != MAGIC) {
+            return source;
+        }
+
+        byte algorithm = source.getByte(readerIndex + Integer.BYTES);
+        if (algorithm == STORED) {
+            return source.skipBytes(HEADER_SIZE);
+        }
+
+        if (algorithm != DEFLATE && algorithm != LZ4) {
+            // no header written by a codec, the value only happens to start with the magic number
+            return source;
+        }
+
+        source.skipBytes(HEADER_SIZE);
+        if (source.readableBytes() < Integer.BYTES) {
+            throw new IllegalStateException("Missing decompressed length of compressed value");
+        }
+
+        int length = source.readInt();
+        long maximumLength = (long) source.readableBytes() * (algorithm == DEFLATE ? MAXIMUM_DEFLATE_RATIO : MAXIMUM_LZ4_RATIO);
+        if (length < 0 || length > maximumLength) {
+            throw new IllegalStateException("Invalid decompressed length " + length + " of compressed value");
+        }
+
+        ByteBuf target = allocator.heapBuffer(length);
+        try {
+            compressor(algorithm).decompress(source, length, target);
+            return target;
+        } catch (final RuntimeException exception) {
+            target.release();
+            throw exception;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof ValueCodec)) {
+            return false;
+        }
+
+        ValueCodec codec = (ValueCodec) other;
+        return this.algorithm == codec.algorithm && this.threshold == codec.threshold;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.algorithm + this.threshold;
+    }
+
+    @NotNull
+    private static Compressor compressor(byte algorithm) {
+        Compressor compressor = algorithm == DEFLATE ? DeflateHolder.INSTANCE : algorithm == LZ4 ? Lz4Holder.INSTANCE : null;
+        if (compressor == null) {
+            throw new IllegalStateException("Unknown compression algorithm " + algorithm);
+        }
+
+        return compressor;
+    }
+
+    private static final class DeflateHolder {
+
+        private static final Compressor INSTANCE = new DeflateCompressor();
+    }
+
+    // lz4-java is an optional dependency and only loaded once a value actually uses it
+    private static final class Lz4Holder {
+
+        private static final Compressor INSTANCE = new Lz4Compressor();
+    }
+}
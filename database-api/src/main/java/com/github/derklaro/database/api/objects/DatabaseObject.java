@@ -24,11 +24,35 @@
 package com.github.derklaro.database.api.objects;
 
 import com.github.derklaro.database.api.buffer.ByteBuffer;
+import com.github.derklaro.database.api.buffer.DataBuffer;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * An object which can be stored in a database. Implementations override either the {@link DataBuffer} or the
+ * {@link ByteBuffer} based methods, the other pair delegates to them. New implementations should prefer the
+ * {@link DataBuffer} methods, the {@link ByteBuffer} ones are kept for compatibility.
+ */
 public interface DatabaseObject {
 
-    void serialize(@NotNull ByteBuffer byteBuffer);
+    default void serialize(@NotNull DataBuffer buffer) {
+        SerializationMethods.requireByteBufferMethod(this.getClass(), "serialize");
+        this.serialize(new ByteBuffer(buffer.getBuffer()));
+    }
+
+    default void deserialize(@NotNull DataBuffer buffer) {
+        SerializationMethods.requireByteBufferMethod(this.getClass(), "deserialize");
+        this.deserialize(new ByteBuffer(buffer.getBuffer()));
+    }
+
+    default void serialize(@NotNull ByteBuffer byteBuffer) {
+        this.serialize(byteBuffer.asDataBuffer());
+    }
+
+    default void deserialize(@NotNull ByteBuffer byteBuffer) {
+        this.deserialize(byteBuffer.asDataBuffer());
+    }
 
-    void deserialize(@NotNull ByteBuffer byteBuffer);
+    default int estimateSize() {
+        return -1;
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.objects;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.function.Supplier;
+
+public final class DatabaseObjectFactory {
+
+    private static final ClassValue<Supplier<?>> FACTORIES = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+            return createFactory(type);
+        }
+    };
+
+    private DatabaseObjectFactory() {
+        throw new UnsupportedOperationException();
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> forType(@NotNull Class<T> type) {
+        return (Supplier<T>) FACTORIES.get(type);
+    }
+
+    /**
+     * Creates a new instance through the given factory of a database. A failing factory is reported and results in
+     * {@code null}, so that a single broken value does not fail a whole read.
+     */
+    @Nullable
+    public static <T> T newInstance(@NotNull Supplier<T> factory, @NotNull Class<?> type) {
+        try {
+            return factory.get();
+        } catch (final RuntimeException exception) {
+            System.err.println("Error during initialize of type class " + type.getName());
+            exception.printStackTrace();
+        }
+
+        return null;
+    }
+
+    @NotNull
+    private static Supplier<?> createFactory(@NotNull Class<?> type) {
+        MethodHandle constructor;
+        try {
+            Constructor<?> declaredConstructor = type.getDeclaredConstructor();
+            declaredConstructor.setAccessible(true);
+            constructor = MethodHandles.lookup().unreflectConstructor(declaredConstructor).asType(MethodType.methodType(Object.class));
+        } catch (final NoSuchMethodException exception) {
+            return () -> {
+                throw new IllegalStateException("Missing NoArgsConstructor in object class " + type.getName());
+            };
+        } catch (final IllegalAccessException | RuntimeException exception) {
+            return () -> {
+                throw new IllegalStateException("Unable to access NoArgsConstructor of object class " + type.getName(), exception);
+            };
+        }
+
+        return () -> {
+            try {
+                return constructor.invokeExact();
+            } catch (final Throwable throwable) {
+                throw new IllegalStateException("Error during initialize of type class " + type.getName(), throwable);
+            }
+        };
+    }
+}
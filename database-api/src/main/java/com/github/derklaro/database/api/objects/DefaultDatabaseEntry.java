@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.objects;
+
+import com.github.derklaro.database.api.Database;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * An entry of a database which either holds its value or decodes it once on first access, so the databases only pay
+ * for decoding the values of entries which are actually read.
+ */
+public class DefaultDatabaseEntry<V extends DatabaseObject> implements DatabaseEntry<V> {
+
+    public DefaultDatabaseEntry(String key, String identifier, V entry, Database<V> source) {
+        this.key = key;
+        this.identifier = identifier;
+        this.entry = entry;
+        this.source = source;
+    }
+
+    private DefaultDatabaseEntry(String key, String identifier, Supplier<V> loader, Database<V> source) {
+        this.key = key;
+        this.identifier = identifier;
+        this.loader = loader;
+        this.source = source;
+    }
+
+    private final String key;
+
+    private final String identifier;
+
+    private final Database<V> source;
+
+    private volatile V entry;
+
+    private Supplier<V> loader;
+
+    @NotNull
+    public static <V extends DatabaseObject> DefaultDatabaseEntry<V> lazy(String key, String identifier, Supplier<V> loader, Database<V> source) {
+        return new DefaultDatabaseEntry<>(key, identifier, loader, source);
+    }
+
+    @Override
+    public @NotNull String getKey() {
+        return this.key;
+    }
+
+    @Override
+    public @NotNull String getIdentifier() {
+        return this.identifier;
+    }
+
+    @NotNull
+    @Override
+    public V getEntry() {
+        V entry = this.entry;
+        if (entry != null) {
+            return entry;
+        }
+
+        synchronized (this) {
+            if (this.entry == null) {
+                V loaded = this.loader.get();
+                if (loaded == null) {
+                    throw new IllegalStateException("Unable to decode entry " + this.key + " of database entry " + this.identifier);
+                }
+
+                this.entry = loaded;
+                this.loader = null;
+            }
+
+            return this.entry;
+        }
+    }
+
+    @Override
+    public @NotNull Database<V> getDatabase() {
+        return this.source;
+    }
+}
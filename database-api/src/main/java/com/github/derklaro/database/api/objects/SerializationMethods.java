@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.objects;
+
+import com.github.derklaro.database.api.buffer.ByteBuffer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Remembers which {@link DatabaseObject} classes implement the {@link ByteBuffer} based methods. The default methods of
+ * both pairs delegate to each other, an object implementing neither pair would otherwise recurse until the stack overflows.
+ */
+final class SerializationMethods {
+
+    private static final ClassValue<Boolean> SERIALIZE = new OverrideCheck("serialize");
+    private static final ClassValue<Boolean> DESERIALIZE = new OverrideCheck("deserialize");
+
+    private SerializationMethods() {
+        throw new UnsupportedOperationException();
+    }
+
+    static void requireByteBufferMethod(@NotNull Class<?> type, @NotNull String method) {
+        ClassValue<Boolean> check = method.equals("serialize") ? SERIALIZE : DESERIALIZE;
+        if (!check.get(type)) {
+            throw new IllegalStateException("Database object " + type.getName() + " has to implement either "
+                    + method + "(DataBuffer) or " + method + "(ByteBuffer)");
+        }
+    }
+
+    private static final class OverrideCheck extends ClassValue<Boolean> {
+
+        private OverrideCheck(@NotNull String method) {
+            this.method = method;
+        }
+
+        private final String method;
+
+        @Override
+        protected Boolean computeValue(@NotNull Class<?> type) {
+            try {
+                return type.getMethod(this.method, ByteBuffer.class).getDeclaringClass() != DatabaseObject.class;
+            } catch (final NoSuchMethodException exception) {
+                return false;
+            }
+        }
+    }
+}
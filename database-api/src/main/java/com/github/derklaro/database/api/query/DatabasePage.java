@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.query;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class DatabasePage<V extends DatabaseObject> {
+
+    public DatabasePage(@NotNull List<DatabaseEntry<V>> entries, @Nullable String nextKey) {
+        this.entries = entries;
+        this.nextKey = nextKey;
+    }
+
+    private final List<DatabaseEntry<V>> entries;
+
+    private final String nextKey;
+
+    /**
+     * Reads a page through {@link Database#query(DatabaseQuery)}, the default implementation of
+     * {@link Database#page(String, int)}. An invalid limit fails the returned future instead of throwing.
+     */
+    @NotNull
+    public static <V extends DatabaseObject> CompletableFuture<DatabasePage<V>> query(@NotNull Database<V> database, @Nullable String afterKey, int limit) {
+        if (limit <= 0) {
+            CompletableFuture<DatabasePage<V>> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalArgumentException("Page limit must be positive, got " + limit));
+            return future;
+        }
+
+        // one more entry than requested tells whether another page follows, a list can never hold more than that
+        int lookAhead = limit == Integer.MAX_VALUE ? limit : limit + 1;
+        DatabaseQuery query = DatabaseQuery.query().keyAfter(afterKey).order(DatabaseQuery.Order.KEY_ASCENDING).limit(lookAhead);
+        return database.query(query).thenApply(entries -> of(entries, limit));
+    }
+
+    @NotNull
+    public static <V extends DatabaseObject> DatabasePage<V> of(@NotNull Collection<DatabaseEntry<V>> entries, int limit) {
+        List<DatabaseEntry<V>> list = new ArrayList<>(entries);
+        if (list.size() <= limit) {
+            return new DatabasePage<>(Collections.unmodifiableList(list), null);
+        }
+
+        List<DatabaseEntry<V>> page = list.subList(0, limit);
+        return new DatabasePage<>(Collections.unmodifiableList(page), page.get(limit - 1).getKey());
+    }
+
+    @NotNull
+    public List<DatabaseEntry<V>> getEntries() {
+        return this.entries;
+    }
+
+    @Nullable
+    public String getNextKey() {
+        return this.nextKey;
+    }
+
+    public boolean hasNext() {
+        return this.nextKey != null;
+    }
+}
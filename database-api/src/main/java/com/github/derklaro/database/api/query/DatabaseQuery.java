@@ -0,0 +1,301 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.query;
+
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.function.Function;
+
+public final class DatabaseQuery {
+
+    private DatabaseQuery() {
+    }
+
+    private Collection<String> identifiers;
+
+    private String identifierPrefix;
+
+    private String identifierFrom;
+
+    private String identifierTo;
+
+    private Collection<String> keys;
+
+    private String keyAfter;
+
+    private int limit = -1;
+
+    private Order order;
+
+    @NotNull
+    public static DatabaseQuery query() {
+        return new DatabaseQuery();
+    }
+
+    @NotNull
+    public DatabaseQuery identifier(@NotNull String identifier) {
+        return this.identifierIn(Collections.singleton(identifier));
+    }
+
+    @NotNull
+    public DatabaseQuery identifierIn(@NotNull String... identifiers) {
+        return this.identifierIn(Arrays.asList(identifiers));
+    }
+
+    @NotNull
+    public DatabaseQuery identifierIn(@NotNull Collection<String> identifiers) {
+        this.identifiers = new ArrayList<>(identifiers);
+        return this;
+    }
+
+    @NotNull
+    public DatabaseQuery identifierPrefix(@NotNull String prefix) {
+        this.identifierPrefix = prefix;
+        return this;
+    }
+
+    @NotNull
+    public DatabaseQuery identifierRange(@Nullable String fromInclusive, @Nullable String toExclusive) {
+        this.identifierFrom = fromInclusive;
+        this.identifierTo = toExclusive;
+        return this;
+    }
+
+    @NotNull
+    public DatabaseQuery keyIn(@NotNull String... keys) {
+        return this.keyIn(Arrays.asList(keys));
+    }
+
+    @NotNull
+    public DatabaseQuery keyIn(@NotNull Collection<String> keys) {
+        this.keys = new ArrayList<>(keys);
+        return this;
+    }
+
+    @NotNull
+    public DatabaseQuery keyAfter(@Nullable String keyExclusive) {
+        this.keyAfter = keyExclusive;
+        return this;
+    }
+
+    @NotNull
+    public DatabaseQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative, got " + limit);
+        }
+
+        this.limit = limit;
+        return this;
+    }
+
+    @NotNull
+    public DatabaseQuery order(@NotNull Order order) {
+        this.order = order;
+        return this;
+    }
+
+    @Nullable
+    public Collection<String> getIdentifiers() {
+        return this.identifiers;
+    }
+
+    @Nullable
+    public String getIdentifierPrefix() {
+        return this.identifierPrefix;
+    }
+
+    @Nullable
+    public String getIdentifierFrom() {
+        return this.identifierFrom;
+    }
+
+    @Nullable
+    public String getIdentifierTo() {
+        return this.identifierTo;
+    }
+
+    @Nullable
+    public Collection<String> getKeys() {
+        return this.keys;
+    }
+
+    @Nullable
+    public String getKeyAfter() {
+        return this.keyAfter;
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+
+    @Nullable
+    public Order getOrder() {
+        return this.order;
+    }
+
+    /**
+     * Checks if a row with the given key and identifier matches the criteria of this query. Used by the database
+     * implementations which can not translate the query into a native one, the limit and order are not checked.
+     */
+    public boolean matches(@NotNull String key, @NotNull String identifier) {
+        if (this.identifiers != null && !this.identifiers.contains(identifier)) {
+            return false;
+        }
+
+        if (this.identifierPrefix != null && !identifier.startsWith(this.identifierPrefix)) {
+            return false;
+        }
+
+        if (this.identifierFrom != null && compareCodePoints(identifier, this.identifierFrom) < 0) {
+            return false;
+        }
+
+        if (this.identifierTo != null && compareCodePoints(identifier, this.identifierTo) >= 0) {
+            return false;
+        }
+
+        if (this.keys != null && !this.keys.contains(key)) {
+            return false;
+        }
+
+        return this.keyAfter == null || compareCodePoints(key, this.keyAfter) > 0;
+    }
+
+    /**
+     * Compares the given strings by their unicode code points, which is the order of the binary collation used for the
+     * key and identifier columns in MySQL. {@link String#compareTo(String)} compares UTF-16 units instead and sorts
+     * supplementary characters before the characters from {@code U+E000} to {@code U+FFFF}.
+     */
+    public static int compareCodePoints(@NotNull String left, @NotNull String right) {
+        int length = Math.min(left.length(), right.length());
+        for (int index = 0; index < length; index++) {
+            if (left.charAt(index) != right.charAt(index)) {
+                return Integer.compare(left.codePointAt(index), right.codePointAt(index));
+            }
+        }
+
+        return Integer.compare(left.length(), right.length());
+    }
+
+    /**
+     * Converts the given identifier to a number the same way as MySQL does when evaluating {@code identifier+0}: the
+     * longest numeric prefix is parsed and an identifier without a numeric prefix is {@code 0}.
+     */
+    public static double numericValue(@NotNull String identifier) {
+        int length = identifier.length();
+        int index = 0;
+        while (index < length && Character.isWhitespace(identifier.charAt(index))) {
+            index++;
+        }
+
+        int start = index;
+        if (index < length && (identifier.charAt(index) == '+' || identifier.charAt(index) == '-')) {
+            index++;
+        }
+
+        int digits = 0;
+        while (index < length && isDigit(identifier.charAt(index))) {
+            index++;
+            digits++;
+        }
+
+        if (index < length && identifier.charAt(index) == '.') {
+            index++;
+            while (index < length && isDigit(identifier.charAt(index))) {
+                index++;
+                digits++;
+            }
+        }
+
+        if (digits == 0) {
+            return 0;
+        }
+
+        int end = index;
+        if (index < length && (identifier.charAt(index) == 'e' || identifier.charAt(index) == 'E')) {
+            index++;
+            if (index < length && (identifier.charAt(index) == '+' || identifier.charAt(index) == '-')) {
+                index++;
+            }
+
+            if (index < length && isDigit(identifier.charAt(index))) {
+                while (index < length && isDigit(identifier.charAt(index))) {
+                    index++;
+                }
+
+                end = index;
+            }
+        }
+
+        return Double.parseDouble(identifier.substring(start, end));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public enum Order {
+
+        KEY_ASCENDING,
+        KEY_DESCENDING,
+        IDENTIFIER_ASCENDING,
+        IDENTIFIER_DESCENDING,
+        IDENTIFIER_NUMERIC_ASCENDING;
+
+        @NotNull
+        public <V extends DatabaseObject> Comparator<DatabaseEntry<V>> comparator() {
+            return this.comparator(DatabaseEntry::getKey, DatabaseEntry::getIdentifier);
+        }
+
+        @NotNull
+        public <T> Comparator<T> comparator(@NotNull Function<T, String> key, @NotNull Function<T, String> identifier) {
+            Comparator<T> byKey = Comparator.comparing(key, DatabaseQuery::compareCodePoints);
+            Comparator<T> byIdentifier = Comparator.comparing(identifier, DatabaseQuery::compareCodePoints);
+
+            switch (this) {
+                case KEY_ASCENDING:
+                    return byKey;
+                case KEY_DESCENDING:
+                    return byKey.reversed();
+                case IDENTIFIER_ASCENDING:
+                    return byIdentifier.thenComparing(byKey);
+                case IDENTIFIER_DESCENDING:
+                    return byIdentifier.thenComparing(byKey).reversed();
+                case IDENTIFIER_NUMERIC_ASCENDING:
+                    Comparator<T> numeric = Comparator.comparingDouble(value -> numericValue(identifier.apply(value)));
+                    return numeric.thenComparing(byKey);
+                default:
+                    throw new IllegalArgumentException("Unsupported order " + this);
+            }
+        }
+    }
+}
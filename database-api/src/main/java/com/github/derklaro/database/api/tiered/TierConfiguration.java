@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.tiered;
+
+import org.jetbrains.annotations.NotNull;
+
+public class TierConfiguration {
+
+    public TierConfiguration(int hotCapacity, @NotNull ColdWriteMode coldWriteMode) {
+        if (hotCapacity <= 0) {
+            throw new IllegalArgumentException("Hot capacity must be positive, got " + hotCapacity);
+        }
+
+        this.hotCapacity = hotCapacity;
+        this.coldWriteMode = coldWriteMode;
+    }
+
+    private final int hotCapacity;
+
+    private final ColdWriteMode coldWriteMode;
+
+    public int getHotCapacity() {
+        return this.hotCapacity;
+    }
+
+    @NotNull
+    public ColdWriteMode getColdWriteMode() {
+        return this.coldWriteMode;
+    }
+}
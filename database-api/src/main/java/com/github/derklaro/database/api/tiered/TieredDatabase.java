@@ -0,0 +1,543 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.tiered;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.cache.CacheStatistics;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Serves reads of the most recently used keys from a hot database and everything else from a cold one. All writes
+ * go to both tiers, so the cold tier always holds the complete data set and answers all scans and queries. Keys
+ * read from the cold tier are promoted into the hot tier, the least recently used keys are demoted by removing them
+ * from the hot tier once it holds more keys than configured.
+ * <p>
+ * The hot tier is cleared on creation, entries left over from an earlier process might be outdated.
+ */
+public class TieredDatabase<V extends DatabaseObject> implements Database<V> {
+
+    public TieredDatabase(@NotNull Database<V> hot, @NotNull Database<V> cold, @NotNull TierConfiguration configuration) {
+        this.hot = hot;
+        this.cold = cold;
+        this.configuration = configuration;
+
+        hot.clear().join();
+    }
+
+    private final Database<V> hot;
+
+    private final Database<V> cold;
+
+    private final TierConfiguration configuration;
+
+    private final Map<String, Boolean> hotKeys = new LinkedHashMap<>(16, 0.75F, true);
+
+    private final Map<String, ColdWrite> pendingColdWrites = new ConcurrentHashMap<>();
+
+    // all writes which did not reach the cold tier yet and the failed ones among them, guarded by pendingColdWrites
+    private final Set<ColdWrite> unfinishedColdWrites = new HashSet<>();
+    private final List<ColdWrite> failedColdWrites = new ArrayList<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder demotions = new LongAdder();
+
+    private volatile ColdWrite pendingColdBarrier;
+
+    // completed exceptionally and replaced whenever a cold write fails, reads waiting for cold writes give up then
+    private volatile CompletableFuture<Void> nextColdWriteFailure = new CompletableFuture<>();
+
+    // a promotion only happens if the load token of the read is still registered, writes remove the token of their keys
+    private final Map<String, Object> loads = new HashMap<>();
+
+    @Override
+    public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value) {
+        CompletableFuture<Void> hotWrite;
+        synchronized (this.hotKeys) {
+            this.loads.remove(key);
+            hotWrite = this.hot.insert(key, identifier, value);
+            this.track(Collections.singleton(key));
+        }
+
+        return this.write(hotWrite, Collections.singleton(key), () -> this.cold.insert(key, identifier, value));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries) {
+        // the cold write and the pin of the keys outlive this call, the caller may reuse its map in the meantime
+        Map<String, Map.Entry<String, V>> copy = new HashMap<>(entries);
+        CompletableFuture<Void> hotWrite;
+        synchronized (this.hotKeys) {
+            this.loads.keySet().removeAll(copy.keySet());
+            hotWrite = this.hot.insertAll(copy);
+            this.track(copy.keySet());
+        }
+
+        return this.write(hotWrite, copy.keySet(), () -> this.cold.insertAll(copy));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier) {
+        boolean hot;
+        Object loadToken = new Object();
+        synchronized (this.hotKeys) {
+            hot = this.hotKeys.get(key) != null;
+            if (!hot) {
+                this.loads.put(key, loadToken);
+            }
+        }
+
+        if (hot) {
+            this.hits.increment();
+            // the key might have been demoted in the meantime, the cold tier still has it in that case
+            return this.hot.get(key, null).thenCompose(result -> result.isPresent()
+                    ? CompletableFuture.completedFuture(result)
+                    : this.afterColdWrites(key, () -> this.cold.get(key, identifier)));
+        }
+
+        this.misses.increment();
+        return this.afterColdWrites(key, () -> this.cold.query(DatabaseQuery.query().keyIn(key).limit(1))).thenCompose(entries -> {
+            if (entries.isEmpty()) {
+                // lookups by identifier are not promoted, the hot tier only knows which keys it holds
+                return identifier == null ? CompletableFuture.completedFuture(Optional.empty()) : this.cold.get(key, identifier);
+            }
+
+            DatabaseEntry<V> entry = entries.iterator().next();
+            V value = entry.getEntry();
+            this.promote(key, entry.getIdentifier(), value, loadToken);
+            return CompletableFuture.completedFuture(Optional.of(value));
+        }).whenComplete((result, throwable) -> {
+            // the token is already gone if the value was promoted
+            synchronized (this.hotKeys) {
+                this.loads.remove(key, loadToken);
+            }
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
+        CompletableFuture<Void> hotWrite;
+        synchronized (this.hotKeys) {
+            this.loads.remove(key);
+            hotWrite = this.hotKeys.containsKey(key) ? this.hot.updateIdentifier(key, identifier) : CompletableFuture.completedFuture(null);
+        }
+
+        return this.write(hotWrite, Collections.singleton(key), () -> this.cold.updateIdentifier(key, identifier));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
+        CompletableFuture<Void> hotWrite;
+        synchronized (this.hotKeys) {
+            this.loads.remove(key);
+            this.hotKeys.remove(key);
+            hotWrite = this.hot.remove(key);
+        }
+
+        return this.write(hotWrite, Collections.singleton(key), () -> this.cold.remove(key));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        Collection<String> copy = new ArrayList<>(keys);
+        CompletableFuture<Void> hotWrite;
+        synchronized (this.hotKeys) {
+            this.loads.keySet().removeAll(copy);
+            this.hotKeys.keySet().removeAll(copy);
+            hotWrite = this.hot.remove(copy);
+        }
+
+        return this.write(hotWrite, copy, () -> this.cold.remove(copy));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
+        CompletableFuture<Void> hotWrite = this.hot.query(DatabaseQuery.query().identifier(identifier)).thenCompose(entries -> {
+            synchronized (this.hotKeys) {
+                // the keys of the identifier which are only in the cold tier are unknown, so no running load may promote
+                this.loads.clear();
+                for (DatabaseEntry<V> entry : entries) {
+                    this.hotKeys.remove(entry.getKey());
+                }
+
+                return this.hot.removeAll(identifier);
+            }
+        });
+
+        return this.write(hotWrite, null, () -> this.cold.removeAll(identifier));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<V>> sortByIdentifier(int limit) {
+        return this.afterColdWrites(() -> this.cold.sortByIdentifier(limit));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getKeys() {
+        return this.afterColdWrites(this.cold::getKeys);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries() {
+        return this.afterColdWrites(this.cold::getEntries);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries(@NotNull Predicate<String> identifierFilter) {
+        return this.afterColdWrites(() -> this.cold.getEntries(identifierFilter));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<V>> entryFilter) {
+        return this.afterColdWrites(() -> this.cold.getEntriesFiltered(entryFilter));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query) {
+        return this.afterColdWrites(() -> this.cold.query(query));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit) {
+        return this.afterColdWrites(() -> this.cold.page(afterKey, limit));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
+        return this.afterColdWrites(this.cold::stream);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> clear() {
+        CompletableFuture<Void> hotWrite;
+        synchronized (this.hotKeys) {
+            this.loads.clear();
+            this.hotKeys.clear();
+            hotWrite = this.hot.clear();
+        }
+
+        return this.write(hotWrite, null, this.cold::clear);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> getSize() {
+        return this.afterColdWrites(this.cold::getSize);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Iterator<V>> iterator() {
+        return this.afterColdWrites(this.cold::iterator);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Spliterator<V>> spliterator() {
+        return this.afterColdWrites(this.cold::spliterator);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<V> consumer) {
+        return this.afterColdWrites(() -> this.cold.forEach(consumer));
+    }
+
+    /**
+     * Retries the failed cold writes and completes once all cold writes which are pending at the time of the call
+     * reached the cold tier. Completes exceptionally as soon as one of them failed, the failed writes are kept and
+     * retried by the next call.
+     */
+    @NotNull
+    public CompletableFuture<Void> flush() {
+        List<ColdWrite> retries;
+        Collection<CompletableFuture<Void>> attempts = new ArrayList<>();
+        synchronized (this.pendingColdWrites) {
+            retries = new ArrayList<>(this.failedColdWrites);
+            this.failedColdWrites.clear();
+            for (ColdWrite write : this.unfinishedColdWrites) {
+                attempts.add(write.attempt);
+            }
+        }
+
+        retries.forEach(this::attempt);
+        return allSucceeded(attempts);
+    }
+
+    /**
+     * Returns the statistics of the hot tier, evictions are the keys demoted to the cold tier.
+     */
+    @NotNull
+    public CacheStatistics getStatistics() {
+        synchronized (this.hotKeys) {
+            return new CacheStatistics(this.hits.sum(), this.misses.sum(), this.demotions.sum(), this.hotKeys.size(), this.hotKeys.size());
+        }
+    }
+
+    @NotNull
+    public Database<V> getHotTier() {
+        return this.hot;
+    }
+
+    @NotNull
+    public Database<V> getColdTier() {
+        return this.cold;
+    }
+
+    @NotNull
+    public TierConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    private void promote(@NotNull String key, @NotNull String identifier, @NotNull V value, @NotNull Object loadToken) {
+        synchronized (this.hotKeys) {
+            // a write to the key since the cold read started might have made the value outdated
+            if (this.loads.remove(key, loadToken)) {
+                this.hot.insert(key, identifier, value);
+                this.track(Collections.singleton(key));
+            }
+        }
+    }
+
+    private void track(@NotNull Collection<String> keys) {
+        for (String key : keys) {
+            this.hotKeys.put(key, Boolean.TRUE);
+        }
+
+        Iterator<String> iterator = this.hotKeys.keySet().iterator();
+        while (this.hotKeys.size() > this.configuration.getHotCapacity() && iterator.hasNext()) {
+            String demoted = iterator.next();
+            if (keys.contains(demoted) || this.pendingColdWrites.containsKey(demoted)) {
+                // the cold tier might not have the value yet, the key stays pinned until its cold writes succeeded.
+                // the cold write of the tracked keys is only enqueued after this call, so they are skipped as well
+                continue;
+            }
+
+            iterator.remove();
+
+            this.hot.remove(demoted);
+            this.demotions.increment();
+        }
+    }
+
+    @NotNull
+    private CompletableFuture<Void> write(@NotNull CompletableFuture<Void> hotWrite, @Nullable Collection<String> keys,
+                                          @NotNull Supplier<CompletableFuture<Void>> coldWrite) {
+        CompletableFuture<Void> write = this.enqueueColdWrite(keys, coldWrite);
+        return this.configuration.getColdWriteMode() == ColdWriteMode.SYNCHRONOUS ? CompletableFuture.allOf(hotWrite, write) : hotWrite;
+    }
+
+    @NotNull
+    private CompletableFuture<Void> enqueueColdWrite(@Nullable Collection<String> keys, @NotNull Supplier<CompletableFuture<Void>> operation) {
+        ColdWrite write = new ColdWrite(keys, operation);
+        Set<CompletableFuture<Void>> previous = Collections.newSetFromMap(new IdentityHashMap<>());
+        synchronized (this.pendingColdWrites) {
+            // writes to the same keys have to reach the cold tier in order, writes without keys wait for all others
+            ColdWrite barrier = this.pendingColdBarrier;
+            if (barrier != null) {
+                previous.add(barrier.done);
+            }
+
+            if (keys == null) {
+                for (ColdWrite pending : this.unfinishedColdWrites) {
+                    previous.add(pending.done);
+                }
+
+                this.pendingColdBarrier = write;
+            } else {
+                for (String key : keys) {
+                    ColdWrite pending = this.pendingColdWrites.put(key, write);
+                    if (pending != null) {
+                        previous.add(pending.done);
+                    }
+                }
+            }
+
+            this.unfinishedColdWrites.add(write);
+        }
+
+        if (previous.isEmpty()) {
+            this.attempt(write);
+        } else {
+            CompletableFuture.allOf(previous.toArray(new CompletableFuture[0])).whenComplete((result, throwable) -> this.attempt(write));
+        }
+
+        return write.done;
+    }
+
+    private void attempt(@NotNull ColdWrite write) {
+        CompletableFuture<Void> operation;
+        try {
+            operation = write.operation.get();
+        } catch (final RuntimeException exception) {
+            operation = new CompletableFuture<>();
+            operation.completeExceptionally(exception);
+        }
+
+        operation.whenComplete((result, throwable) -> {
+            CompletableFuture<Void> attempt = write.attempt;
+            if (throwable != null && this.configuration.getColdWriteMode() == ColdWriteMode.ASYNCHRONOUS) {
+                // nobody waits for the write, so it is kept and blocks the later writes to its keys until flush retried it
+                CompletableFuture<Void> failure;
+                synchronized (this.pendingColdWrites) {
+                    write.attempt = new CompletableFuture<>();
+                    this.failedColdWrites.add(write);
+
+                    failure = this.nextColdWriteFailure;
+                    this.nextColdWriteFailure = new CompletableFuture<>();
+                }
+
+                System.err.println("Unable to write to the cold tier, keeping the write until flush retries it");
+                throwable.printStackTrace();
+
+                attempt.completeExceptionally(throwable);
+                failure.completeExceptionally(throwable);
+                return;
+            }
+
+            synchronized (this.pendingColdWrites) {
+                this.unfinishedColdWrites.remove(write);
+                if (this.pendingColdBarrier == write) {
+                    this.pendingColdBarrier = null;
+                }
+
+                if (write.keys != null) {
+                    for (String key : write.keys) {
+                        this.pendingColdWrites.remove(key, write);
+                    }
+                }
+            }
+
+            if (throwable == null) {
+                write.done.complete(null);
+                attempt.complete(null);
+            } else {
+                write.done.completeExceptionally(throwable);
+                attempt.completeExceptionally(throwable);
+            }
+        });
+    }
+
+    @NotNull
+    private <T> CompletableFuture<T> afterColdWrites(@NotNull String key, @NotNull Supplier<CompletableFuture<T>> read) {
+        ColdWrite pending = this.pendingColdWrites.get(key);
+        ColdWrite barrier = this.pendingColdBarrier;
+        if (pending == null && barrier == null) {
+            return read.get();
+        }
+
+        CompletableFuture<Void> failure = this.nextColdWriteFailure;
+        CompletableFuture<Void> written = pending == null ? barrier.done : barrier == null ? pending.done : CompletableFuture.allOf(pending.done, barrier.done);
+        if (!written.isDone() && this.hasFailedColdWrites()) {
+            // the pending writes might wait for a failed one, which only a flush retries
+            this.flush();
+        }
+
+        // the cold tier might still be unavailable, the read goes to it anyway once a write failed again
+        return CompletableFuture.anyOf(written, failure).handle((result, throwable) -> null).thenCompose(ignored -> read.get());
+    }
+
+    @NotNull
+    private <T> CompletableFuture<T> afterColdWrites(@NotNull Supplier<CompletableFuture<T>> read) {
+        synchronized (this.pendingColdWrites) {
+            if (this.unfinishedColdWrites.isEmpty()) {
+                return read.get();
+            }
+        }
+
+        return this.flush().handle((result, throwable) -> null).thenCompose(ignored -> read.get());
+    }
+
+    private boolean hasFailedColdWrites() {
+        synchronized (this.pendingColdWrites) {
+            return !this.failedColdWrites.isEmpty();
+        }
+    }
+
+    @NotNull
+    private static CompletableFuture<Void> allSucceeded(@NotNull Collection<CompletableFuture<Void>> futures) {
+        // unlike allOf this fails as soon as one future failed, the writes queued behind a failed one never complete
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            result.complete(null);
+            return result;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        for (CompletableFuture<Void> future : futures) {
+            future.whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else if (remaining.decrementAndGet() == 0) {
+                    result.complete(null);
+                }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * A write to the cold tier. It is done once it reached the cold tier, every attempt to write it has its own
+     * future which also completes if the attempt failed.
+     */
+    private static final class ColdWrite {
+
+        private ColdWrite(@Nullable Collection<String> keys, @NotNull Supplier<CompletableFuture<Void>> operation) {
+            this.keys = keys;
+            this.operation = operation;
+        }
+
+        private final Collection<String> keys;
+        private final Supplier<CompletableFuture<Void>> operation;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private volatile CompletableFuture<Void> attempt = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.tiered;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.DatabaseProvider;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.objects.DatabaseObjectFactory;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Combines a fast local provider with a remote one, see {@link TieredDatabase}. The databases of both providers use
+ * the same name, the cold provider is the source of truth for the existence of a database.
+ */
+public class TieredDatabaseProvider implements DatabaseProvider {
+
+    private final Map<String, TieredDatabase<? extends DatabaseObject>> databases = new ConcurrentHashMap<>();
+
+    private final Object creationLock = new Object();
+
+    public TieredDatabaseProvider(@NotNull DatabaseProvider hot, @NotNull DatabaseProvider cold, @NotNull TierConfiguration defaultConfiguration) {
+        this.hot = hot;
+        this.cold = cold;
+        this.defaultConfiguration = defaultConfiguration;
+    }
+
+    private final DatabaseProvider hot;
+
+    private final DatabaseProvider cold;
+
+    private final TierConfiguration defaultConfiguration;
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> isConnected() {
+        return this.hot.isConnected().thenCombine(this.cold.isConnected(), (hot, cold) -> hot && cold);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> closeConnection() {
+        Collection<CompletableFuture<Void>> flushes = new ArrayList<>();
+        for (TieredDatabase<? extends DatabaseObject> database : this.databases.values()) {
+            flushes.add(database.flush());
+        }
+
+        this.databases.clear();
+        return CompletableFuture.allOf(flushes.toArray(new CompletableFuture[0]))
+                .handle((result, throwable) -> null)
+                .thenCompose(ignored -> this.hot.closeConnection().thenCombine(this.cold.closeConnection(), (hot, cold) -> hot && cold));
+    }
+
+    @Override
+    public @NotNull <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory) {
+        return this.getDatabase(name, type, factory, this.defaultConfiguration);
+    }
+
+    @NotNull
+    public <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull TierConfiguration configuration) {
+        return this.getDatabase(name, type, DatabaseObjectFactory.forType(type), configuration);
+    }
+
+    /**
+     * Gets the tiered database with the given name, the configuration is only used if the database is not open yet.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory,
+                                                              @NotNull TierConfiguration configuration) {
+        TieredDatabase<? extends DatabaseObject> database = this.databases.get(name);
+        if (database != null) {
+            return (Database<V>) database;
+        }
+
+        // opening the tiers may create tables and the constructor clears the hot tier, both block and must not hold a lock
+        // of the map. unlike creating a table, clearing the hot tier is not idempotent: a second instance created by a
+        // concurrent call would clear the entries the first one already promoted, so the creation is serialized instead
+        synchronized (this.creationLock) {
+            database = this.databases.get(name);
+            if (database == null) {
+                database = new TieredDatabase<>(this.hot.getDatabase(name, type, factory), this.cold.getDatabase(name, type, factory), configuration);
+                this.databases.put(name, database);
+            }
+
+            return (Database<V>) database;
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> existsDatabase(@NotNull String name) {
+        return this.cold.existsDatabase(name);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> deleteDatabase(@NotNull String name) {
+        TieredDatabase<? extends DatabaseObject> database = this.databases.remove(name);
+        CompletableFuture<Void> flush = database == null ? CompletableFuture.completedFuture(null) : database.flush();
+
+        return flush.handle((result, throwable) -> null)
+                .thenCompose(ignored -> this.hot.deleteDatabase(name))
+                .thenCompose(ignored -> this.cold.deleteDatabase(name));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getDatabaseNames() {
+        return this.cold.getDatabaseNames();
+    }
+
+    @NotNull
+    public DatabaseProvider getHotProvider() {
+        return this.hot;
+    }
+
+    @NotNull
+    public DatabaseProvider getColdProvider() {
+        return this.cold;
+    }
+}
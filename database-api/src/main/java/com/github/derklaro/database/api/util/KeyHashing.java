@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The key hashing shared by the hash based storage engines. The hashes are persisted by some of them, so the
+ * function must never change.
+ */
+public final class KeyHashing {
+
+    private KeyHashing() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Hashes the given value, the result is never {@code 0} so that it can be used to mark empty slots.
+     */
+    public static long hash(@NotNull String value) {
+        // fnv-1a over the chars of the value, finished with the murmur3 mixer to spread the bits over the whole long
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Gets the slot a hash is placed in first in a linear probing table of the given power of two size minus one.
+     */
+    public static int idealSlot(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Checks if the hash stored in the given slot may move into the hole left by a removal (backward shift
+     * deletion). It may move if the hole lies between its ideal slot and its current one, otherwise a lookup
+     * starting at the ideal slot would no longer reach it.
+     */
+    public static boolean canShiftInto(long hash, int slot, int hole, int mask) {
+        return ((slot - idealSlot(hash, mask)) & mask) >= ((slot - hole) & mask);
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.writebehind;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class WriteBehindDatabase<V extends DatabaseObject> implements Database<V>, AutoCloseable {
+
+    private static final ScheduledExecutorService DEFAULT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "database-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteBehindDatabase(@NotNull Database<V> delegate, int maxPendingWrites, long flushInterval, @NotNull TimeUnit timeUnit) {
+        this(delegate, maxPendingWrites, flushInterval, timeUnit, DEFAULT_SCHEDULER);
+    }
+
+    public WriteBehindDatabase(@NotNull Database<V> delegate, int maxPendingWrites, long flushInterval,
+                               @NotNull TimeUnit timeUnit, @NotNull ScheduledExecutorService scheduler) {
+        if (maxPendingWrites <= 0) {
+            throw new IllegalArgumentException("Max pending writes must be positive, got " + maxPendingWrites);
+        }
+
+        this.delegate = delegate;
+        this.maxPendingWrites = maxPendingWrites;
+        this.flushTask = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, timeUnit);
+    }
+
+    private final Database<V> delegate;
+
+    private final int maxPendingWrites;
+
+    private final ScheduledFuture<?> flushTask;
+
+    private final Map<String, PendingWrite<V>> pending = new ConcurrentHashMap<>();
+
+    private final Map<String, PendingWrite<V>> flushing = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+
+    private CompletableFuture<Void> lastFlush = CompletableFuture.completedFuture(null);
+
+    private volatile boolean closed;
+
+    @Override
+    public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value) {
+        this.buffer(key, new PendingWrite<>(identifier, value));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries) {
+        for (Map.Entry<String, Map.Entry<String, V>> entry : entries.entrySet()) {
+            this.buffer(entry.getKey(), new PendingWrite<>(entry.getValue().getKey(), entry.getValue().getValue()));
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier) {
+        PendingWrite<V> write = this.pending.get(key);
+        if (write == null) {
+            write = this.flushing.get(key);
+        }
+
+        if (write != null) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(write.value));
+        }
+
+        if (identifier == null) {
+            return this.delegate.get(key, null);
+        }
+
+        return this.afterFlush(() -> this.delegate.get(key, identifier));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
+        return this.afterFlush(() -> this.delegate.updateIdentifier(key, identifier));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
+        this.buffer(key, PendingWrite.removal());
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        for (String key : keys) {
+            this.buffer(key, PendingWrite.removal());
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
+        return this.afterFlush(() -> this.delegate.removeAll(identifier));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<V>> sortByIdentifier(int limit) {
+        return this.afterFlush(() -> this.delegate.sortByIdentifier(limit));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getKeys() {
+        return this.afterFlush(this.delegate::getKeys);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries() {
+        return this.afterFlush(this.delegate::getEntries);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries(@NotNull Predicate<String> identifierFilter) {
+        return this.afterFlush(() -> this.delegate.getEntries(identifierFilter));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<V>> entryFilter) {
+        return this.afterFlush(() -> this.delegate.getEntriesFiltered(entryFilter));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query) {
+        return this.afterFlush(() -> this.delegate.query(query));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit) {
+        return this.afterFlush(() -> this.delegate.page(afterKey, limit));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
+        return this.afterFlush(this.delegate::stream);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> clear() {
+        synchronized (this.flushLock) {
+            this.pending.clear();
+            return this.afterFlush(this.delegate::clear);
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> getSize() {
+        return this.afterFlush(this.delegate::getSize);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Iterator<V>> iterator() {
+        return this.afterFlush(this.delegate::iterator);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Spliterator<V>> spliterator() {
+        return this.afterFlush(this.delegate::spliterator);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<V> consumer) {
+        return this.afterFlush(() -> this.delegate.forEach(consumer));
+    }
+
+    @NotNull
+    public CompletableFuture<Void> flush() {
+        synchronized (this.flushLock) {
+            Map<String, PendingWrite<V>> batch = new HashMap<>();
+            for (Map.Entry<String, PendingWrite<V>> entry : this.pending.entrySet()) {
+                // publish the write as flushing first, a concurrent get must always find it in one of both maps
+                this.flushing.put(entry.getKey(), entry.getValue());
+                if (this.pending.remove(entry.getKey(), entry.getValue())) {
+                    batch.put(entry.getKey(), entry.getValue());
+                } else {
+                    this.flushing.remove(entry.getKey(), entry.getValue());
+                }
+            }
+
+            // flushes are chained so that a later state of a key can never be overtaken by an older one
+            CompletableFuture<Void> previous = this.lastFlush;
+            this.lastFlush = previous.handle((result, throwable) -> null).thenCompose(ignored -> this.write(batch));
+            // a failed earlier flush puts its writes back into pending once it completes, if it was still running they
+            // are not part of this batch and this flush did not write everything either
+            return previous.isDone() ? this.lastFlush : CompletableFuture.allOf(previous, this.lastFlush);
+        }
+    }
+
+    public int getPendingWrites() {
+        return this.pending.size();
+    }
+
+    @NotNull
+    public Database<V> getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.flushTask.cancel(false);
+        this.flush().join();
+    }
+
+    private void buffer(@NotNull String key, @NotNull PendingWrite<V> write) {
+        if (this.closed) {
+            throw new IllegalStateException("Write behind database is already closed");
+        }
+
+        this.pending.put(key, write);
+        if (this.pending.size() >= this.maxPendingWrites) {
+            this.flush();
+        }
+    }
+
+    @NotNull
+    private CompletableFuture<Void> write(@NotNull Map<String, PendingWrite<V>> batch) {
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Map<String, Map.Entry<String, V>> inserts = new HashMap<>();
+        Collection<String> removals = new ArrayList<>();
+        for (Map.Entry<String, PendingWrite<V>> entry : batch.entrySet()) {
+            PendingWrite<V> write = entry.getValue();
+            if (write.value == null) {
+                removals.add(entry.getKey());
+            } else {
+                inserts.put(entry.getKey(), new AbstractMap.SimpleImmutableEntry<>(write.identifier, write.value));
+            }
+        }
+
+        CompletableFuture<Void> insertFuture = inserts.isEmpty() ? CompletableFuture.completedFuture(null) : this.delegate.insertAll(inserts);
+        CompletableFuture<Void> removeFuture = removals.isEmpty() ? CompletableFuture.completedFuture(null) : this.delegate.remove(removals);
+
+        return CompletableFuture.allOf(insertFuture, removeFuture).whenComplete((result, throwable) -> {
+            for (Map.Entry<String, PendingWrite<V>> entry : batch.entrySet()) {
+                // keep the failed write for the next flush unless the key was written again in the meantime
+                if (throwable != null && this.flushing.get(entry.getKey()) == entry.getValue()) {
+                    this.pending.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+
+                this.flushing.remove(entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    @NotNull
+    private <T> CompletableFuture<T> afterFlush(@NotNull Supplier<CompletableFuture<T>> operation) {
+        return this.flush().thenCompose(ignored -> operation.get());
+    }
+
+    private static final class PendingWrite<V> {
+
+        private PendingWrite(@Nullable String identifier, @Nullable V value) {
+            this.identifier = identifier;
+            this.value = value;
+        }
+
+        private final String identifier;
+
+        private final V value;
+
+        @NotNull
+        private static <V> PendingWrite<V> removal() {
+            return new PendingWrite<>(null, null);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api;
+
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A synchronous database keeping its entries in a map, used as the delegate of the wrapping databases in tests. Writes
+ * can be made to fail to check how the wrappers handle an unreachable backend, and single reads can be held back to
+ * let them race with a write.
+ */
+public final class TestDatabase implements Database<TestObject> {
+
+    private final Map<String, Map.Entry<String, TestObject>> entries = new TreeMap<>(DatabaseQuery::compareCodePoints);
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private final AtomicInteger writes = new AtomicInteger();
+
+    private volatile boolean failWrites;
+
+    private volatile CompletableFuture<?> readGate;
+
+    public void setFailWrites(boolean failWrites) {
+        this.failWrites = failWrites;
+    }
+
+    /**
+     * Sets a future which has to complete before reads by key complete. The value is still read when get is called, so
+     * a held read returns the value from before any write made in the meantime.
+     */
+    public void setReadGate(@Nullable CompletableFuture<?> readGate) {
+        this.readGate = readGate;
+    }
+
+    public int getReads() {
+        return this.reads.get();
+    }
+
+    public int getWrites() {
+        return this.writes.get();
+    }
+
+    @NotNull
+    public synchronized Optional<String> value(@NotNull String key) {
+        return Optional.ofNullable(this.entries.get(key)).map(entry -> entry.getValue().getValue());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull TestObject value) {
+        return this.write(() -> this.entries.put(key, new AbstractMap.SimpleImmutableEntry<>(identifier, value)));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, TestObject>> entries) {
+        return this.write(() -> this.entries.putAll(entries));
+    }
+
+    @Override
+    public synchronized @NotNull CompletableFuture<Optional<TestObject>> get(@NotNull String key, @Nullable String identifier) {
+        this.reads.incrementAndGet();
+        Map.Entry<String, TestObject> entry = this.entries.get(key);
+        if (entry == null && identifier != null) {
+            entry = this.entries.values().stream().filter(value -> value.getKey().equals(identifier)).findFirst().orElse(null);
+        }
+
+        Optional<TestObject> value = Optional.ofNullable(entry).map(Map.Entry::getValue);
+        CompletableFuture<?> readGate = this.readGate;
+        return readGate == null ? CompletableFuture.completedFuture(value) : readGate.thenApply(ignored -> value);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
+        return this.write(() -> this.entries.computeIfPresent(key, (ignored, entry) -> new AbstractMap.SimpleImmutableEntry<>(identifier, entry.getValue())));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
+        return this.write(() -> this.entries.remove(key));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        return this.write(() -> this.entries.keySet().removeAll(keys));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
+        return this.write(() -> this.entries.values().removeIf(entry -> entry.getKey().equals(identifier)));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<TestObject>> sortByIdentifier(int limit) {
+        return this.query(DatabaseQuery.query().order(DatabaseQuery.Order.IDENTIFIER_NUMERIC_ASCENDING).limit(limit))
+                .thenApply(entries -> entries.stream().map(DatabaseEntry::getEntry).collect(Collectors.toList()));
+    }
+
+    @Override
+    public synchronized @NotNull CompletableFuture<Collection<String>> getKeys() {
+        return CompletableFuture.completedFuture(new ArrayList<>(this.entries.keySet()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<TestObject>>> getEntries() {
+        return this.query(DatabaseQuery.query());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<TestObject>>> getEntries(@NotNull Predicate<String> identifierFilter) {
+        return this.getEntriesFiltered(entry -> identifierFilter.test(entry.getIdentifier()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<TestObject>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<TestObject>> entryFilter) {
+        return this.getEntries().thenApply(entries -> entries.stream().filter(entryFilter).collect(Collectors.toList()));
+    }
+
+    @Override
+    public synchronized @NotNull CompletableFuture<Collection<DatabaseEntry<TestObject>>> query(@NotNull DatabaseQuery query) {
+        this.reads.incrementAndGet();
+        Stream<DatabaseEntry<TestObject>> stream = this.entries.entrySet().stream()
+                .filter(entry -> query.matches(entry.getKey(), entry.getValue().getKey()))
+                .map(entry -> new Entry(entry.getKey(), entry.getValue().getKey(), entry.getValue().getValue()));
+        if (query.getOrder() != null) {
+            stream = stream.sorted(query.getOrder().comparator());
+        }
+
+        if (query.getLimit() >= 0) {
+            stream = stream.limit(query.getLimit());
+        }
+
+        return CompletableFuture.completedFuture(stream.collect(Collectors.toList()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<TestObject>> page(@Nullable String afterKey, int limit) {
+        return DatabasePage.query(this, afterKey, limit);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<TestObject>>> stream() {
+        return this.getEntries().thenApply(Collection::stream);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> clear() {
+        return this.write(this.entries::clear);
+    }
+
+    @Override
+    public synchronized @NotNull CompletableFuture<Long> getSize() {
+        return CompletableFuture.completedFuture((long) this.entries.size());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Iterator<TestObject>> iterator() {
+        return this.values().thenApply(List::iterator);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Spliterator<TestObject>> spliterator() {
+        return this.values().thenApply(List::spliterator);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<TestObject> consumer) {
+        return this.values().thenAccept(values -> values.forEach(consumer));
+    }
+
+    @NotNull
+    private CompletableFuture<List<TestObject>> values() {
+        return this.getEntries().thenApply(entries -> entries.stream().map(DatabaseEntry::getEntry).collect(Collectors.toList()));
+    }
+
+    @NotNull
+    private synchronized CompletableFuture<Void> write(@NotNull Runnable operation) {
+        if (this.failWrites) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Writes are disabled"));
+            return future;
+        }
+
+        this.writes.incrementAndGet();
+        operation.run();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private final class Entry implements DatabaseEntry<TestObject> {
+
+        private Entry(@NotNull String key, @NotNull String identifier, @NotNull TestObject entry) {
+            this.key = key;
+            this.identifier = identifier;
+            this.entry = entry;
+        }
+
+        private final String key;
+
+        private final String identifier;
+
+        private final TestObject entry;
+
+        @Override
+        public @NotNull String getKey() {
+            return this.key;
+        }
+
+        @Override
+        public @NotNull String getIdentifier() {
+            return this.identifier;
+        }
+
+        @Override
+        public @NotNull TestObject getEntry() {
+            return this.entry;
+        }
+
+        @Override
+        public @NotNull Database<TestObject> getDatabase() {
+            return TestDatabase.this;
+        }
+    }
+}
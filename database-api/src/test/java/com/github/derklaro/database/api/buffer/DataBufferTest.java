@@ -0,0 +1,229 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class DataBufferTest {
+
+    private static final List<Integer> VAR_INTS = Arrays.asList(0, 1, 127, 128, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE, -1, Integer.MIN_VALUE);
+    private static final List<Long> VAR_LONGS = Arrays.asList(0L, 1L, 127L, 128L, (long) Integer.MAX_VALUE + 1, Long.MAX_VALUE, -1L, Long.MIN_VALUE);
+
+    private static final List<String> STRINGS = Arrays.asList(
+            null,
+            "",
+            "ascii",
+            "äöü",
+            repeat("€", 50),
+            repeat("x", 200),
+            new String(Character.toChars(0x1F600)),
+            "unpaired \uD800 surrogate \uDC00"
+    );
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void varIntsMatchTheBaselineFormat(boolean direct) {
+        for (int value : VAR_INTS) {
+            ByteBuf baseline = Unpooled.buffer();
+            Baseline.putVarInt(baseline, value);
+
+            DataBuffer buffer = new DataBuffer(allocate(direct));
+            buffer.putVarInt(value);
+            assertArrayEquals(ByteBufUtil.getBytes(baseline), ByteBufUtil.getBytes(buffer.getBuffer()), String.valueOf(value));
+
+            assertEquals(value, new DataBuffer(baseline).readVarInt());
+            assertEquals(value, buffer.readVarInt());
+            assertFalse(buffer.isReadable());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void stringsMatchTheBaselineFormat(boolean direct) {
+        for (String value : STRINGS) {
+            ByteBuf baseline = Unpooled.buffer();
+            Baseline.putString(baseline, value);
+
+            DataBuffer buffer = new DataBuffer(allocate(direct));
+            buffer.putString(value);
+            assertArrayEquals(ByteBufUtil.getBytes(baseline), ByteBufUtil.getBytes(buffer.getBuffer()), value);
+
+            // unpaired surrogates are replaced while encoding, so compare against what the baseline reads back
+            String expected = Baseline.readString(baseline.duplicate());
+            assertEquals(expected, new DataBuffer(baseline).readString());
+            assertEquals(expected, buffer.readString());
+            assertFalse(buffer.isReadable());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void uniqueIdsAndByteArraysMatchTheBaselineFormat(boolean direct) {
+        UUID uniqueId = UUID.randomUUID();
+        byte[] bytes = repeat("bytes", 40).getBytes(StandardCharsets.UTF_8);
+
+        ByteBuf baseline = Unpooled.buffer();
+        Baseline.putUniqueId(baseline, uniqueId);
+        Baseline.putUniqueId(baseline, null);
+        Baseline.putVarInt(baseline, bytes.length);
+        baseline.writeBytes(bytes);
+
+        DataBuffer buffer = new DataBuffer(allocate(direct));
+        buffer.putUniqueId(uniqueId).putUniqueId(null).putByteArray(bytes);
+        assertArrayEquals(ByteBufUtil.getBytes(baseline), ByteBufUtil.getBytes(buffer.getBuffer()));
+
+        assertEquals(uniqueId, buffer.readUniqueId());
+        assertEquals(null, buffer.readUniqueId());
+        assertArrayEquals(bytes, buffer.readByteArray());
+        assertFalse(buffer.isReadable());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void varLongsAndSignedNumbersRoundTrip(boolean direct) {
+        DataBuffer buffer = new DataBuffer(allocate(direct));
+        for (long value : VAR_LONGS) {
+            buffer.putVarLong(value).putSignedVarLong(value);
+        }
+
+        for (int value : VAR_INTS) {
+            buffer.putSignedVarInt(value);
+        }
+
+        for (long value : VAR_LONGS) {
+            assertEquals(value, buffer.readVarLong());
+            assertEquals(value, buffer.readSignedVarLong());
+        }
+
+        for (int value : VAR_INTS) {
+            assertEquals(value, buffer.readSignedVarInt());
+        }
+
+        assertFalse(buffer.isReadable());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void primitiveArraysRoundTrip(boolean direct) {
+        int[] ints = {0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        long[] longs = {0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        UUID[] uniqueIds = {UUID.randomUUID(), UUID.randomUUID()};
+
+        DataBuffer buffer = new DataBuffer(allocate(direct));
+        buffer.putIntArray(ints).putLongArray(longs).putUniqueIds(uniqueIds);
+
+        assertArrayEquals(ints, buffer.readIntArray());
+        assertArrayEquals(longs, buffer.readLongArray());
+        assertArrayEquals(uniqueIds, buffer.readUniqueIds());
+        assertFalse(buffer.isReadable());
+    }
+
+    @NotNull
+    private static ByteBuf allocate(boolean direct) {
+        // a small initial capacity makes every codec grow the buffer at least once
+        return direct ? Unpooled.directBuffer(1) : Unpooled.buffer(1);
+    }
+
+    @NotNull
+    private static String repeat(@NotNull String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+
+        return builder.toString();
+    }
+
+    // the encoding of the ByteBuffer before DataBuffer existed, rows written by it must stay readable
+    private static final class Baseline {
+
+        private static void putVarInt(@NotNull ByteBuf buffer, int value) {
+            do {
+                byte temp = (byte) (value & 0b01111111);
+                value >>>= 7;
+                if (value != 0) {
+                    temp |= 0b10000000;
+                }
+
+                buffer.writeByte(temp);
+            } while (value != 0);
+        }
+
+        private static int readVarInt(@NotNull ByteBuf buffer) {
+            int numRead = 0;
+            int result = 0;
+            byte read;
+
+            do {
+                read = buffer.readByte();
+                result |= (read & 0b01111111) << (7 * numRead++);
+            } while ((read & 0b10000000) != 0);
+
+            return result;
+        }
+
+        private static void putString(@NotNull ByteBuf buffer, @Nullable String string) {
+            buffer.writeBoolean(string == null);
+            if (string != null) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                putVarInt(buffer, bytes.length);
+                buffer.writeBytes(bytes);
+            }
+        }
+
+        @Nullable
+        private static String readString(@NotNull ByteBuf buffer) {
+            if (buffer.readBoolean()) {
+                return null;
+            }
+
+            byte[] bytes = new byte[readVarInt(buffer)];
+            buffer.readBytes(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static void putUniqueId(@NotNull ByteBuf buffer, @Nullable UUID uniqueId) {
+            buffer.writeBoolean(uniqueId == null);
+            if (uniqueId != null) {
+                buffer.writeLong(uniqueId.getMostSignificantBits());
+                buffer.writeLong(uniqueId.getLeastSignificantBits());
+            }
+        }
+    }
+}
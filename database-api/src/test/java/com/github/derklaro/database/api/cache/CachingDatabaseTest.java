@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.cache;
+
+import com.github.derklaro.database.api.TestDatabase;
+import com.github.derklaro.database.api.TestObject;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CachingDatabaseTest {
+
+    private final TestDatabase delegate = new TestDatabase();
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        CachingDatabase<TestObject> database = new CachingDatabase<>(this.delegate, 2);
+        for (String key : new String[]{"a", "b", "c"}) {
+            this.delegate.insert(key, "1", new TestObject(key)).join();
+        }
+
+        database.get("a", null).join();
+        database.get("b", null).join();
+        // reading a makes b the least recently used entry
+        database.get("a", null).join();
+        database.get("c", null).join();
+        assertEquals(3, this.delegate.getReads());
+
+        assertEquals("a", value(database, "a"));
+        assertEquals("c", value(database, "c"));
+        assertEquals(3, this.delegate.getReads());
+
+        assertEquals("b", value(database, "b"));
+        assertEquals(4, this.delegate.getReads());
+        assertEquals(2, database.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    void valuesAreEvictedByWeight() {
+        CachingDatabase<TestObject> database = new CachingDatabase<>(this.delegate, 10, value -> value.getValue().length(),
+                0, TimeUnit.NANOSECONDS, false);
+        this.delegate.insert("small", "1", new TestObject("12345")).join();
+        this.delegate.insert("large", "1", new TestObject("12345678901")).join();
+
+        database.get("small", null).join();
+        database.get("large", null).join();
+        assertEquals(5, database.getStatistics().getWeight());
+
+        // a value heavier than the whole cache is never stored
+        database.get("large", null).join();
+        assertEquals(3, this.delegate.getReads());
+        assertEquals(1, database.getStatistics().getSize());
+    }
+
+    @Test
+    void entriesExpireAfterWrite() {
+        CachingDatabase<TestObject> expiring = new CachingDatabase<>(this.delegate, 10, null, 1, TimeUnit.NANOSECONDS, false);
+        CachingDatabase<TestObject> lasting = new CachingDatabase<>(this.delegate, 10, null, 1, TimeUnit.HOURS, false);
+        this.delegate.insert("a", "1", new TestObject("a")).join();
+
+        expiring.get("a", null).join();
+        expiring.get("a", null).join();
+        assertEquals(2, this.delegate.getReads());
+        assertEquals(0, expiring.getStatistics().getHitCount());
+
+        lasting.get("a", null).join();
+        lasting.get("a", null).join();
+        assertEquals(3, this.delegate.getReads());
+        assertEquals(1, lasting.getStatistics().getHitCount());
+    }
+
+    @Test
+    void missingKeysAreOnlyCachedIfEnabled() {
+        CachingDatabase<TestObject> caching = new CachingDatabase<>(this.delegate, 10, null, 0, TimeUnit.NANOSECONDS, true);
+        CachingDatabase<TestObject> plain = new CachingDatabase<>(this.delegate, 10);
+
+        caching.get("missing", null).join();
+        assertFalse(caching.get("missing", null).join().isPresent());
+        assertEquals(1, this.delegate.getReads());
+
+        plain.get("missing", null).join();
+        plain.get("missing", null).join();
+        assertEquals(3, this.delegate.getReads());
+    }
+
+    @Test
+    void writesInvalidateCachedValues() {
+        CachingDatabase<TestObject> database = new CachingDatabase<>(this.delegate, 10);
+        database.insert("a", "1", new TestObject("old")).join();
+        assertEquals("old", value(database, "a"));
+
+        database.insert("a", "1", new TestObject("new")).join();
+        assertEquals("new", value(database, "a"));
+
+        database.remove("a").join();
+        assertFalse(database.get("a", null).join().isPresent());
+    }
+
+    @Test
+    void loadRacingAWriteIsNotCached() {
+        CachingDatabase<TestObject> database = new CachingDatabase<>(this.delegate, 10);
+        this.delegate.insert("a", "1", new TestObject("old")).join();
+        this.delegate.insert("b", "1", new TestObject("b")).join();
+
+        CompletableFuture<Void> readGate = new CompletableFuture<>();
+        this.delegate.setReadGate(readGate);
+        CompletableFuture<Optional<TestObject>> staleLoad = database.get("a", null);
+        CompletableFuture<Optional<TestObject>> otherLoad = database.get("b", null);
+
+        database.insert("a", "1", new TestObject("new")).join();
+        readGate.complete(null);
+        this.delegate.setReadGate(null);
+        assertEquals("old", staleLoad.join().map(TestObject::getValue).orElse(null));
+        otherLoad.join();
+
+        // the stale value was dropped, the load of the other key is still cached
+        assertEquals("new", value(database, "a"));
+        assertEquals("b", value(database, "b"));
+        assertEquals(3, this.delegate.getReads());
+    }
+
+    @NotNull
+    private static String value(@NotNull CachingDatabase<TestObject> database, @NotNull String key) {
+        return database.get(key, null).join().map(TestObject::getValue).orElse("");
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValueCodecTest {
+
+    private static final byte[] VALUE = repeat("compressible value ", 100);
+
+    private static final List<ValueCodec> CODECS = Arrays.asList(ValueCodec.none(), ValueCodec.deflate(0), ValueCodec.lz4(0));
+
+    @Test
+    void valuesRoundTripThroughEveryCodec() {
+        for (ValueCodec writer : CODECS) {
+            byte[] encoded = encode(writer, VALUE, Unpooled.buffer());
+            for (ValueCodec reader : CODECS) {
+                assertArrayEquals(VALUE, decode(reader, encoded, ByteBufAllocator.DEFAULT));
+            }
+        }
+    }
+
+    @Test
+    void compressedValuesShrink() {
+        assertTrue(encode(ValueCodec.deflate(0), VALUE, Unpooled.buffer()).length < VALUE.length);
+        assertTrue(encode(ValueCodec.lz4(0), VALUE, Unpooled.buffer()).length < VALUE.length);
+    }
+
+    @Test
+    void directBuffersAreSupported() {
+        for (ValueCodec codec : CODECS) {
+            assertArrayEquals(VALUE, decode(codec, encode(codec, VALUE, Unpooled.directBuffer()), ByteBufAllocator.DEFAULT));
+        }
+
+        ByteBuf compressed = Unpooled.directBuffer();
+        ByteBuf decompressed = Unpooled.directBuffer();
+        try {
+            DeflateCompressor compressor = new DeflateCompressor();
+            compressor.compress(Unpooled.wrappedBuffer(VALUE), compressed);
+            compressor.decompress(compressed, VALUE.length, decompressed);
+            assertArrayEquals(VALUE, ByteBufUtil.getBytes(decompressed));
+        } finally {
+            compressed.release();
+            decompressed.release();
+        }
+    }
+
+    @Test
+    void legacyValuesAreReadAsTheyAre() {
+        byte[] legacy = "legacy value".getBytes(StandardCharsets.UTF_8);
+        // a legacy value starting with the magic number but no known algorithm
+        byte[] magic = new byte[]{(byte) 0xDB, (byte) 0xC0, (byte) 0xDE, (byte) 0xC0, 42, 1, 2, 3};
+
+        for (ValueCodec codec : CODECS) {
+            assertArrayEquals(legacy, decode(codec, legacy, ByteBufAllocator.DEFAULT));
+            assertArrayEquals(magic, decode(codec, magic, ByteBufAllocator.DEFAULT));
+        }
+    }
+
+    @Test
+    void storedValuesAreWrittenWithHeader() {
+        byte[] encoded = encode(ValueCodec.none(), VALUE, Unpooled.buffer());
+        assertTrue(encoded.length > VALUE.length);
+        assertArrayEquals(VALUE, decode(ValueCodec.none(), encoded, ByteBufAllocator.DEFAULT));
+    }
+
+    @Test
+    void implausibleDecompressedLengthIsRejected() {
+        byte[] encoded = encode(ValueCodec.deflate(0), VALUE, Unpooled.buffer());
+        ByteBuf buffer = Unpooled.wrappedBuffer(encoded);
+        buffer.setInt(Integer.BYTES + 1, Integer.MAX_VALUE);
+        assertThrows(IllegalStateException.class, () -> ValueCodec.deflate(0).decode(buffer, ByteBufAllocator.DEFAULT));
+
+        buffer.setInt(Integer.BYTES + 1, -1);
+        buffer.readerIndex(0);
+        assertThrows(IllegalStateException.class, () -> ValueCodec.deflate(0).decode(buffer, ByteBufAllocator.DEFAULT));
+    }
+
+    @NotNull
+    private static byte[] encode(@NotNull ValueCodec codec, @NotNull byte[] value, @NotNull ByteBuf target) {
+        try {
+            codec.encode(Unpooled.wrappedBuffer(value), target);
+            return ByteBufUtil.getBytes(target);
+        } finally {
+            target.release();
+        }
+    }
+
+    @NotNull
+    private static byte[] decode(@NotNull ValueCodec codec, @NotNull byte[] value, @NotNull ByteBufAllocator allocator) {
+        ByteBuf source = Unpooled.wrappedBuffer(value);
+        ByteBuf decoded = codec.decode(source, allocator);
+        try {
+            return ByteBufUtil.getBytes(decoded);
+        } finally {
+            if (decoded != source) {
+                decoded.release();
+            }
+        }
+    }
+
+    @NotNull
+    private static byte[] repeat(@NotNull String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.objects;
+
+import com.github.derklaro.database.api.buffer.ByteBuffer;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatabaseObjectTest {
+
+    @Test
+    void byteBufferObjectIsReadableThroughDataBuffer() {
+        DataBuffer buffer = new DataBuffer(Unpooled.buffer());
+        new LegacyObject("value", 5).serialize(buffer);
+
+        LegacyObject read = new LegacyObject();
+        read.deserialize(buffer);
+        assertEquals("value", read.name);
+        assertEquals(5, read.count);
+    }
+
+    @Test
+    void dataBufferObjectIsReadableThroughByteBuffer() {
+        ByteBuffer buffer = new ByteBuffer(Unpooled.buffer());
+        new CurrentObject("value").serialize(buffer);
+
+        CurrentObject read = new CurrentObject();
+        read.deserialize(buffer);
+        assertEquals("value", read.name);
+    }
+
+    @Test
+    void objectWithoutSerializationMethodsFailsWithoutRecursion() {
+        DataBuffer buffer = new DataBuffer(Unpooled.buffer());
+        assertThrows(IllegalStateException.class, () -> new EmptyObject().serialize(buffer));
+        assertThrows(IllegalStateException.class, () -> new EmptyObject().deserialize(buffer));
+        assertThrows(IllegalStateException.class, () -> new EmptyObject().serialize(new ByteBuffer(Unpooled.buffer())));
+    }
+
+    private static final class LegacyObject implements DatabaseObject {
+
+        private LegacyObject() {
+        }
+
+        private LegacyObject(@NotNull String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        private String name;
+
+        private int count;
+
+        @Override
+        public void serialize(@NotNull ByteBuffer byteBuffer) {
+            byteBuffer.putString(this.name);
+            byteBuffer.writeInt(this.count);
+        }
+
+        @Override
+        public void deserialize(@NotNull ByteBuffer byteBuffer) {
+            this.name = byteBuffer.readString().orElse(null);
+            this.count = byteBuffer.readInt();
+        }
+    }
+
+    private static final class CurrentObject implements DatabaseObject {
+
+        private CurrentObject() {
+        }
+
+        private CurrentObject(@NotNull String name) {
+            this.name = name;
+        }
+
+        private String name;
+
+        @Override
+        public void serialize(@NotNull DataBuffer buffer) {
+            buffer.putString(this.name);
+        }
+
+        @Override
+        public void deserialize(@NotNull DataBuffer buffer) {
+            this.name = buffer.readString();
+        }
+    }
+
+    private static final class EmptyObject implements DatabaseObject {
+    }
+}
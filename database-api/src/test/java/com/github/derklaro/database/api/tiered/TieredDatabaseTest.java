@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.tiered;
+
+import com.github.derklaro.database.api.TestDatabase;
+import com.github.derklaro.database.api.TestObject;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TieredDatabaseTest {
+
+    private final TestDatabase hot = new TestDatabase();
+
+    private final TestDatabase cold = new TestDatabase();
+
+    @Test
+    void missesArePromotedAndTheLeastRecentlyUsedKeysDemoted() {
+        TieredDatabase<TestObject> database = this.open(2, ColdWriteMode.SYNCHRONOUS);
+        this.cold.insert("a", "1", new TestObject("a")).join();
+
+        assertEquals(Optional.of("a"), value(database, "a"));
+        assertEquals(Optional.of("a"), this.hot.value("a"));
+
+        database.insert("b", "1", new TestObject("b")).join();
+        database.insert("c", "1", new TestObject("c")).join();
+        assertEquals(Optional.empty(), this.hot.value("a"));
+        assertEquals(1L, database.getStatistics().getEvictionCount());
+
+        assertEquals(Optional.of("c"), value(database, "c"));
+        assertEquals(Optional.of("a"), value(database, "a"));
+        assertEquals(1L, database.getStatistics().getHitCount());
+        assertEquals(2L, database.getStatistics().getMissCount());
+    }
+
+    @Test
+    void failedAsynchronousWritesAreRetriedByFlush() {
+        TieredDatabase<TestObject> database = this.open(10, ColdWriteMode.ASYNCHRONOUS);
+        this.cold.setFailWrites(true);
+
+        Map<String, Map.Entry<String, TestObject>> entries = new HashMap<>();
+        entries.put("a", new AbstractMap.SimpleImmutableEntry<>("1", new TestObject("a")));
+        entries.put("b", new AbstractMap.SimpleImmutableEntry<>("1", new TestObject("b")));
+        database.insertAll(entries).join();
+        // the caller reuses its map, the pending cold write must not see that
+        entries.clear();
+
+        assertThrows(CompletionException.class, () -> database.flush().join());
+        assertEquals(Optional.empty(), this.cold.value("a"));
+
+        this.cold.setFailWrites(false);
+        database.flush().join();
+        assertEquals(Optional.of("a"), this.cold.value("a"));
+        assertEquals(Optional.of("b"), this.cold.value("b"));
+    }
+
+    @Test
+    void keysStayPinnedUntilTheirColdWriteSucceeded() {
+        TieredDatabase<TestObject> database = this.open(1, ColdWriteMode.ASYNCHRONOUS);
+        this.cold.setFailWrites(true);
+
+        Map<String, Map.Entry<String, TestObject>> entries = new HashMap<>();
+        for (String key : Arrays.asList("a", "b", "c")) {
+            entries.put(key, new AbstractMap.SimpleImmutableEntry<>("1", new TestObject(key)));
+        }
+
+        database.insertAll(entries).join();
+        entries.clear();
+        assertEquals(3L, this.hot.getSize().join());
+
+        this.cold.setFailWrites(false);
+        database.flush().join();
+
+        // the retried write released the pins, the next write demotes all keys above the capacity
+        database.insert("d", "1", new TestObject("d")).join();
+        database.flush().join();
+        assertEquals(1L, this.hot.getSize().join());
+        for (String key : Arrays.asList("a", "b", "c", "d")) {
+            assertEquals(Optional.of(key), value(database, key));
+        }
+    }
+
+    @Test
+    void removalsOfReusedCollectionsReachTheColdTier() {
+        TieredDatabase<TestObject> database = this.open(10, ColdWriteMode.ASYNCHRONOUS);
+        database.insert("a", "1", new TestObject("a")).join();
+        database.insert("b", "1", new TestObject("b")).join();
+        database.flush().join();
+
+        this.cold.setFailWrites(true);
+        Collection<String> keys = new ArrayList<>(Arrays.asList("a", "b"));
+        database.remove(keys).join();
+        keys.clear();
+        assertThrows(CompletionException.class, () -> database.flush().join());
+
+        this.cold.setFailWrites(false);
+        database.flush().join();
+        assertEquals(0L, this.cold.getSize().join());
+    }
+
+    @NotNull
+    private TieredDatabase<TestObject> open(int hotCapacity, @NotNull ColdWriteMode coldWriteMode) {
+        return new TieredDatabase<>(this.hot, this.cold, new TierConfiguration(hotCapacity, coldWriteMode));
+    }
+
+    @NotNull
+    private static Optional<String> value(@NotNull TieredDatabase<TestObject> database, @NotNull String key) {
+        return database.get(key, null).join().map(TestObject::getValue);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.api.writebehind;
+
+import com.github.derklaro.database.api.TestDatabase;
+import com.github.derklaro.database.api.TestObject;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteBehindDatabaseTest {
+
+    // the scheduled flush never runs during a test, every flush is triggered explicitly
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final TestDatabase delegate = new TestDatabase();
+
+    @AfterEach
+    void shutdownScheduler() {
+        this.scheduler.shutdownNow();
+    }
+
+    @Test
+    void writesToTheSameKeyAreCoalesced() {
+        WriteBehindDatabase<TestObject> database = this.open(100);
+        for (int i = 0; i < 10; i++) {
+            database.insert("a", "1", new TestObject("value-" + i)).join();
+        }
+
+        database.insert("b", "1", new TestObject("removed")).join();
+        database.remove("b").join();
+        assertEquals(2, database.getPendingWrites());
+
+        database.flush().join();
+        // one batched insert and one batched removal
+        assertEquals(2, this.delegate.getWrites());
+        assertEquals(Optional.of("value-9"), this.delegate.value("a"));
+        assertEquals(Optional.empty(), this.delegate.value("b"));
+        assertEquals(0, database.getPendingWrites());
+    }
+
+    @Test
+    void pendingWritesAreVisibleBeforeTheFlush() {
+        WriteBehindDatabase<TestObject> database = this.open(100);
+        database.insert("a", "1", new TestObject("pending")).join();
+
+        assertEquals(Optional.empty(), this.delegate.value("a"));
+        assertEquals(Optional.of("pending"), value(database, "a"));
+        // reads which can not be answered from the buffer flush first
+        assertEquals(1L, database.getSize().join());
+    }
+
+    @Test
+    void failedBatchIsKeptAndRetried() {
+        WriteBehindDatabase<TestObject> database = this.open(100);
+        this.delegate.setFailWrites(true);
+        database.insert("a", "1", new TestObject("first")).join();
+        database.remove("b").join();
+
+        assertThrows(CompletionException.class, () -> database.flush().join());
+        assertEquals(2, database.getPendingWrites());
+        assertEquals(Optional.of("first"), value(database, "a"));
+
+        this.delegate.setFailWrites(false);
+        database.flush().join();
+        assertEquals(0, database.getPendingWrites());
+        assertEquals(Optional.of("first"), this.delegate.value("a"));
+    }
+
+    @Test
+    void retryDoesNotOverwriteANewerWrite() {
+        WriteBehindDatabase<TestObject> database = this.open(100);
+        this.delegate.setFailWrites(true);
+        database.insert("a", "1", new TestObject("old")).join();
+        assertThrows(CompletionException.class, () -> database.flush().join());
+
+        database.insert("a", "1", new TestObject("new")).join();
+        this.delegate.setFailWrites(false);
+        database.flush().join();
+        assertEquals(Optional.of("new"), this.delegate.value("a"));
+    }
+
+    @Test
+    void reachingTheLimitFlushes() {
+        WriteBehindDatabase<TestObject> database = this.open(3);
+        database.insert("a", "1", new TestObject("a")).join();
+        database.insert("b", "1", new TestObject("b")).join();
+        assertEquals(0, this.delegate.getWrites());
+
+        database.insert("c", "1", new TestObject("c")).join();
+        database.flush().join();
+        assertEquals(1, this.delegate.getWrites());
+        assertEquals(3L, this.delegate.getSize().join());
+    }
+
+    @Test
+    void closeFlushesAndRejectsWrites() {
+        WriteBehindDatabase<TestObject> database = this.open(100);
+        database.insert("a", "1", new TestObject("value")).join();
+        database.close();
+
+        assertEquals(Optional.of("value"), this.delegate.value("a"));
+        assertThrows(IllegalStateException.class, () -> database.insert("b", "1", new TestObject("value")));
+    }
+
+    @NotNull
+    private WriteBehindDatabase<TestObject> open(int maxPendingWrites) {
+        return new WriteBehindDatabase<>(this.delegate, maxPendingWrites, 1, TimeUnit.HOURS, this.scheduler);
+    }
+
+    @NotNull
+    private static Optional<String> value(@NotNull WriteBehindDatabase<TestObject> database, @NotNull String key) {
+        return database.get(key, null).join().map(TestObject::getValue);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.benchmarks;
+
+import com.github.derklaro.database.api.buffer.ByteBuffer;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.benchmarks.objects.BenchmarkObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferBenchmark {
+
+    private static final int[] VAR_INTS = {0, 1, 127, 128, 300, 16_384, 2_097_152, 268_435_456, Integer.MAX_VALUE, -1};
+    private static final String ASCII_STRING = "player-name-0123456789";
+    private static final String UTF8_STRING = "Spieler-Größe-äöü-€";
+    private static final UUID UNIQUE_ID = UUID.randomUUID();
+
+    private ByteBuf buffer;
+
+    private ByteBuffer byteBuffer;
+
+    private DataBuffer dataBuffer;
+
+    private BenchmarkObject object;
+
+    private ByteBuffer encodedObject;
+
+    private DataBuffer encodedData;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.buffer = PooledByteBufAllocator.DEFAULT.heapBuffer(1024);
+        this.byteBuffer = new ByteBuffer(this.buffer);
+        this.dataBuffer = new DataBuffer(this.buffer);
+        this.object = BenchmarkObject.create(42);
+
+        this.encodedObject = new ByteBuffer(PooledByteBufAllocator.DEFAULT.heapBuffer(1024));
+        this.object.serialize(this.encodedObject);
+        this.encodedData = this.encodedObject.asDataBuffer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.buffer.release();
+        this.encodedObject.release();
+    }
+
+    @Benchmark
+    public int varIntRoundTrip() {
+        this.buffer.clear();
+        for (int value : VAR_INTS) {
+            this.byteBuffer.putVarInt(value);
+        }
+
+        int result = 0;
+        for (int i = 0; i < VAR_INTS.length; i++) {
+            result += this.byteBuffer.readVarInt();
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public void asciiStringRoundTrip(Blackhole blackhole) {
+        this.buffer.clear();
+        this.byteBuffer.putString(ASCII_STRING);
+        blackhole.consume(this.byteBuffer.readString());
+    }
+
+    @Benchmark
+    public void utf8StringRoundTrip(Blackhole blackhole) {
+        this.buffer.clear();
+        this.byteBuffer.putString(UTF8_STRING);
+        blackhole.consume(this.byteBuffer.readString());
+    }
+
+    @Benchmark
+    public void uniqueIdRoundTrip(Blackhole blackhole) {
+        this.buffer.clear();
+        this.byteBuffer.putUniqueId(UNIQUE_ID);
+        blackhole.consume(this.byteBuffer.readUniqueId());
+    }
+
+    @Benchmark
+    public int objectEncode() {
+        this.buffer.clear();
+        this.object.serialize(this.byteBuffer);
+        return this.buffer.writerIndex();
+    }
+
+    @Benchmark
+    public BenchmarkObject objectDecode() {
+        this.encodedObject.readerIndex(0);
+        BenchmarkObject object = new BenchmarkObject();
+        object.deserialize(this.encodedObject);
+        return object;
+    }
+
+    @Benchmark
+    public BenchmarkObject objectRoundTrip() {
+        this.buffer.clear();
+        this.object.serialize(this.byteBuffer);
+
+        BenchmarkObject object = new BenchmarkObject();
+        object.deserialize(this.byteBuffer);
+        return object;
+    }
+
+    @Benchmark
+    public int varIntRoundTripDataBuffer() {
+        this.buffer.clear();
+        for (int value : VAR_INTS) {
+            this.dataBuffer.putVarInt(value);
+        }
+
+        int result = 0;
+        for (int i = 0; i < VAR_INTS.length; i++) {
+            result += this.dataBuffer.readVarInt();
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public String asciiStringRoundTripDataBuffer() {
+        this.buffer.clear();
+        this.dataBuffer.putString(ASCII_STRING);
+        return this.dataBuffer.readString();
+    }
+
+    @Benchmark
+    public String utf8StringRoundTripDataBuffer() {
+        this.buffer.clear();
+        this.dataBuffer.putString(UTF8_STRING);
+        return this.dataBuffer.readString();
+    }
+
+    @Benchmark
+    public UUID uniqueIdRoundTripDataBuffer() {
+        this.buffer.clear();
+        this.dataBuffer.putUniqueId(UNIQUE_ID);
+        return this.dataBuffer.readUniqueId();
+    }
+
+    @Benchmark
+    public int objectEncodeDataBuffer() {
+        this.buffer.clear();
+        this.object.serialize(this.dataBuffer);
+        return this.buffer.writerIndex();
+    }
+
+    @Benchmark
+    public BenchmarkObject objectDecodeDataBuffer() {
+        this.encodedObject.readerIndex(0);
+        BenchmarkObject object = new BenchmarkObject();
+        object.deserialize(this.encodedData);
+        return object;
+    }
+
+    @Benchmark
+    public BenchmarkObject objectRoundTripDataBuffer() {
+        this.buffer.clear();
+        this.object.serialize(this.dataBuffer);
+
+        BenchmarkObject object = new BenchmarkObject();
+        object.deserialize(this.dataBuffer);
+        return object;
+    }
+}
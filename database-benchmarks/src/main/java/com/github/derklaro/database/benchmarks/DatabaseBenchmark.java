@@ -0,0 +1,223 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.benchmarks;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.DatabaseProvider;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.tiered.ColdWriteMode;
+import com.github.derklaro.database.api.tiered.TierConfiguration;
+import com.github.derklaro.database.api.tiered.TieredDatabaseProvider;
+import com.github.derklaro.database.benchmarks.objects.BenchmarkObject;
+import com.github.derklaro.database.file.FileDatabaseProvider;
+import com.github.derklaro.database.memory.MemoryDatabaseProvider;
+import com.github.derklaro.database.memory.StorageMode;
+import com.github.derklaro.database.mysql.MySQLDatabaseProvider;
+import com.github.derklaro.database.mysql.dialect.SQLDialect;
+import com.github.derklaro.database.mysql.shard.ShardedDatabaseProvider;
+import com.github.derklaro.database.mysql.util.DatabaseExecutors;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs the database operations end-to-end. The mysql backend uses the mysql dialect against an in-memory H2 database
+ * in MySQL compatibility mode, so the benchmarks can be executed without a running MySQL server. The h2 and sqlite
+ * backends run the jdbc database with their own dialects, the tiered backend puts the memory engine in front of h2
+ * and the sharded backend spreads the entries over four h2 databases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    private static final String DATABASE_NAME = "benchmark";
+    private static final int SHARDS = 4;
+
+    @Param({"1000"})
+    private int entries;
+
+    @Param({"100"})
+    private int batchSize;
+
+    @Param({"mysql", "memory", "memory-objects", "offheap", "file", "h2", "sqlite", "tiered", "sharded"})
+    private String backend;
+
+    private DatabaseProvider provider;
+
+    private Database<BenchmarkObject> database;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        switch (this.backend) {
+            case "mysql":
+                this.provider = jdbcProvider(
+                        "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", 4, SQLDialect.mysql()
+                );
+                break;
+            case "h2":
+                this.provider = jdbcProvider("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", 4, SQLDialect.h2());
+                break;
+            case "sqlite":
+                Path file = Files.createTempFile("database-benchmark", ".db");
+                file.toFile().deleteOnExit();
+                // sqlite only allows a single writer
+                this.provider = jdbcProvider("jdbc:sqlite:" + file, 1, SQLDialect.sqlite());
+                break;
+            case "tiered":
+                // every entry fits into the hot tier, so reads measure the hot path and writes both tiers
+                this.provider = new TieredDatabaseProvider(
+                        new MemoryDatabaseProvider(StorageMode.SERIALIZED),
+                        jdbcProvider("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", 4, SQLDialect.h2()),
+                        new TierConfiguration(this.entries, ColdWriteMode.SYNCHRONOUS)
+                );
+                break;
+            case "sharded":
+                Map<String, DatabaseProvider> shards = new LinkedHashMap<>();
+                for (int i = 0; i < SHARDS; i++) {
+                    shards.put("shard-" + i, jdbcProvider("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", 4, SQLDialect.h2()));
+                }
+
+                this.provider = new ShardedDatabaseProvider(shards);
+                break;
+            case "memory":
+                this.provider = new MemoryDatabaseProvider(StorageMode.SERIALIZED);
+                break;
+            case "memory-objects":
+                this.provider = new MemoryDatabaseProvider(StorageMode.LIVE_OBJECTS);
+                break;
+            case "offheap":
+                this.provider = new MemoryDatabaseProvider(StorageMode.OFF_HEAP);
+                break;
+            case "file":
+                this.provider = new FileDatabaseProvider(Files.createTempDirectory("database-benchmark"));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown backend " + this.backend);
+        }
+
+        this.database = this.provider.getDatabase(DATABASE_NAME, BenchmarkObject.class);
+
+        Map<String, Map.Entry<String, BenchmarkObject>> values = new HashMap<>();
+        for (int i = 0; i < this.entries; i++) {
+            values.put(key(i), new AbstractMap.SimpleImmutableEntry<>(Integer.toString(i % 10), BenchmarkObject.create(i)));
+        }
+
+        this.database.insertAll(values).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.provider.deleteDatabase(DATABASE_NAME).join();
+        this.provider.closeConnection().join();
+    }
+
+    @Benchmark
+    public void insert() {
+        int seed = ThreadLocalRandom.current().nextInt(this.entries);
+        this.database.insert(key(seed), Integer.toString(seed % 10), BenchmarkObject.create(seed)).join();
+    }
+
+    @Benchmark
+    public void insertAll() {
+        int offset = ThreadLocalRandom.current().nextInt(this.entries - this.batchSize);
+
+        Map<String, Map.Entry<String, BenchmarkObject>> values = new HashMap<>();
+        for (int i = offset; i < offset + this.batchSize; i++) {
+            values.put(key(i), new AbstractMap.SimpleImmutableEntry<>(Integer.toString(i % 10), BenchmarkObject.create(i)));
+        }
+
+        this.database.insertAll(values).join();
+    }
+
+    @Benchmark
+    public Object get() {
+        return this.database.get(key(ThreadLocalRandom.current().nextInt(this.entries)), null).join();
+    }
+
+    @Benchmark
+    public void getEntries(Blackhole blackhole) {
+        this.database.getEntries().join().forEach(entry -> blackhole.consume(entry.getEntry()));
+    }
+
+    @Benchmark
+    public void forEach(Blackhole blackhole) {
+        this.database.forEach(blackhole::consume).join();
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        try (Stream<DatabaseEntry<BenchmarkObject>> stream = this.database.stream().join()) {
+            stream.forEach(entry -> blackhole.consume(entry.getEntry()));
+        }
+    }
+
+    @NotNull
+    private static DatabaseProvider jdbcProvider(@NotNull String url, int poolSize, @NotNull SQLDialect dialect) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setMaximumPoolSize(poolSize);
+
+        return new MySQLDatabaseProvider(
+                new HikariDataSource(config),
+                DatabaseExecutors.newBoundedExecutor(poolSize),
+                PooledByteBufAllocator.DEFAULT,
+                dialect
+        );
+    }
+
+    private static String key(int i) {
+        return "key-" + i;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.benchmarks.objects;
+
+import com.github.derklaro.database.api.buffer.ByteBuffer;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+public class BenchmarkObject implements DatabaseObject {
+
+    public BenchmarkObject() {
+    }
+
+    public BenchmarkObject(@NotNull UUID uniqueId, @NotNull String name, long lastLogin, int level, @NotNull long[] statistics) {
+        this.uniqueId = uniqueId;
+        this.name = name;
+        this.lastLogin = lastLogin;
+        this.level = level;
+        this.statistics = statistics;
+    }
+
+    private UUID uniqueId;
+
+    private String name;
+
+    private long lastLogin;
+
+    private int level;
+
+    private long[] statistics;
+
+    @NotNull
+    public static BenchmarkObject create(int seed) {
+        long[] statistics = new long[16];
+        for (int i = 0; i < statistics.length; i++) {
+            statistics[i] = (long) seed * i;
+        }
+
+        return new BenchmarkObject(new UUID(seed, ~seed), "player-" + seed, 1_590_000_000_000L + seed, seed % 100, statistics);
+    }
+
+    @Override
+    public void serialize(@NotNull DataBuffer buffer) {
+        buffer.putUniqueId(this.uniqueId);
+        buffer.putString(this.name);
+        buffer.putVarLong(this.lastLogin);
+        buffer.putVarInt(this.level);
+        buffer.putLongArray(this.statistics);
+    }
+
+    @Override
+    public void deserialize(@NotNull DataBuffer buffer) {
+        this.uniqueId = buffer.readUniqueId();
+        this.name = buffer.readString();
+        this.lastLogin = buffer.readVarLong();
+        this.level = buffer.readVarInt();
+        this.statistics = buffer.readLongArray();
+    }
+
+    // the legacy methods are kept to compare the ByteBuffer adapter with the DataBuffer codec
+
+    @Override
+    public void serialize(@NotNull ByteBuffer byteBuffer) {
+        byteBuffer.putUniqueId(this.uniqueId);
+        byteBuffer.putString(this.name);
+        byteBuffer.putVarLong(this.lastLogin);
+        byteBuffer.putVarInt(this.level);
+        byteBuffer.putLongArray(this.statistics);
+    }
+
+    @Override
+    public void deserialize(@NotNull ByteBuffer byteBuffer) {
+        this.uniqueId = byteBuffer.readUniqueId().orElse(null);
+        this.name = byteBuffer.readString().orElse(null);
+        this.lastLogin = byteBuffer.readVarLong();
+        this.level = byteBuffer.readVarInt();
+        this.statistics = byteBuffer.readLongArray();
+    }
+
+    @Override
+    public int estimateSize() {
+        return 96 + this.statistics.length * Long.BYTES;
+    }
+
+    public UUID getUniqueId() {
+        return this.uniqueId;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+}
@@ -0,0 +1,795 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.file;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.objects.DatabaseObjectFactory;
+import com.github.derklaro.database.api.objects.DefaultDatabaseEntry;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import com.github.derklaro.database.api.util.KeyHashing;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A database stored in segmented append-only log files. Every write appends a record to the newest segment and
+ * points the {@link MappedIndex} of the key to it, older records of the key become dead and are removed by the
+ * compaction. The identifiers of all keys are kept on the heap for the identifier based operations.
+ * <p>
+ * Opening a database replays all segments to rebuild the index, a record torn by a crash ends the replay of its
+ * segment and the segment is truncated to the last valid record.
+ */
+public class FileDatabase<V extends DatabaseObject> implements Database<V> {
+
+    private static final String INDEX_FILE = "index.dat";
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    FileDatabase(@NotNull FileDatabaseProvider provider, @NotNull String name, @NotNull Class<V> type,
+                 @NotNull Supplier<V> factory) throws IOException {
+        this.provider = provider;
+        this.name = name;
+        this.type = type;
+        this.factory = factory;
+        this.directory = provider.getDirectory().resolve(name);
+
+        Files.createDirectories(this.directory);
+        this.index = new MappedIndex(this.directory.resolve(INDEX_FILE));
+        this.recover();
+    }
+
+    private final FileDatabaseProvider provider;
+    private final String name;
+    private final Class<V> type;
+    private final Supplier<V> factory;
+    private final Path directory;
+    private final MappedIndex index;
+
+    // writes and the compaction hold the write lock, reads of the index and the segments hold the read lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // only one compaction may run at a time, a manual one and the one of the provider could pick the same segment
+    private final Lock compactionLock = new ReentrantLock();
+    private final NavigableMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, String> identifiers = new ConcurrentSkipListMap<>(DatabaseQuery::compareCodePoints);
+    private final ConcurrentMap<String, Set<String>> identifierIndex = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<IdentifierKey> sortedByIdentifier = new ConcurrentSkipListSet<>(IdentifierKey.ORDER);
+
+    private volatile LogSegment activeSegment;
+
+    @Override
+    public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value) {
+        return this.provider.supply(() -> {
+            this.write(buffer -> {
+                ByteBuf encoded = this.encode(value);
+                try {
+                    LogRecord.write(buffer, LogRecord.PUT, key, identifier, encoded);
+                } finally {
+                    encoded.release();
+                }
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries) {
+        return this.provider.supply(() -> {
+            this.write(buffer -> {
+                for (Map.Entry<String, Map.Entry<String, V>> entry : entries.entrySet()) {
+                    ByteBuf encoded = this.encode(entry.getValue().getValue());
+                    try {
+                        LogRecord.write(buffer, LogRecord.PUT, entry.getKey(), entry.getValue().getKey(), encoded);
+                    } finally {
+                        encoded.release();
+                    }
+                }
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier) {
+        return this.provider.supply(() -> {
+            String recordKey = key;
+            if (identifier != null && !this.identifiers.containsKey(key)) {
+                Set<String> keys = this.identifierIndex.get(identifier);
+                recordKey = keys == null ? null : keys.stream().findFirst().orElse(null);
+            }
+
+            ByteBuf record = recordKey == null ? null : this.readRecord(recordKey);
+            if (record == null) {
+                return Optional.empty();
+            }
+
+            try {
+                return Optional.ofNullable(this.decode(record));
+            } finally {
+                record.release();
+            }
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
+        return this.provider.supply(() -> {
+            this.lock.writeLock().lock();
+            try {
+                String previous = this.identifiers.get(key);
+                if (previous == null || previous.equals(identifier)) {
+                    return null;
+                }
+
+                ByteBuf record = this.readRecordLocked(key);
+                ByteBuf buffer = this.provider.getAllocator().heapBuffer(record.readableBytes() + identifier.length());
+                try {
+                    record.readerIndex(LogRecord.valueOffset(record, 0));
+                    LogRecord.write(buffer, LogRecord.PUT, key, identifier, record);
+                    this.appendLocked(buffer);
+                } finally {
+                    record.release();
+                    buffer.release();
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
+        return this.remove(Collections.singleton(key));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        return this.provider.supply(() -> {
+            this.lock.writeLock().lock();
+            try {
+                this.removeLocked(keys, null);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
+        return this.provider.supply(() -> {
+            this.lock.writeLock().lock();
+            try {
+                Set<String> keys = this.identifierIndex.get(identifier);
+                if (keys != null) {
+                    this.removeLocked(new ArrayList<>(keys), identifier);
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<V>> sortByIdentifier(int limit) {
+        return this.provider.supply(() -> {
+            Collection<V> results = new ArrayList<>();
+            for (IdentifierKey identifierKey : this.sortedByIdentifier) {
+                if (results.size() >= limit) {
+                    break;
+                }
+
+                V value = this.readValue(identifierKey.key);
+                if (value != null) {
+                    results.add(value);
+                }
+            }
+
+            return results;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getKeys() {
+        return this.provider.supply(() -> new ArrayList<>(this.identifiers.keySet()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries() {
+        return this.provider.supply(() -> this.readEntries(this.identifiers.keySet(), identifier -> true));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries(@NotNull Predicate<String> identifierFilter) {
+        return this.provider.supply(() -> this.readEntries(this.identifiers.keySet(), identifierFilter));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<V>> entryFilter) {
+        return this.getEntries().thenApply(entries -> entries.stream().filter(entryFilter).collect(Collectors.toList()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query) {
+        return this.provider.supply(() -> {
+            int limit = query.getLimit() < 0 ? Integer.MAX_VALUE : query.getLimit();
+            DatabaseQuery.Order order = query.getOrder();
+
+            // the heap view is sorted by key, so key ordered queries over it can stop at the limit
+            Collection<String> candidates;
+            boolean keyOrdered = false;
+            if (query.getKeys() != null) {
+                candidates = new LinkedHashSet<>(query.getKeys());
+            } else if (query.getIdentifiers() != null) {
+                candidates = new LinkedHashSet<>();
+                for (String identifier : query.getIdentifiers()) {
+                    candidates.addAll(this.identifierIndex.getOrDefault(identifier, Collections.emptySet()));
+                }
+            } else {
+                candidates = query.getKeyAfter() == null ? this.identifiers.keySet() : this.identifiers.tailMap(query.getKeyAfter(), false).keySet();
+                keyOrdered = true;
+            }
+
+            boolean ordered = order == null || (order == DatabaseQuery.Order.KEY_ASCENDING && keyOrdered);
+            List<String> keys = new ArrayList<>();
+            for (String key : candidates) {
+                if (ordered && keys.size() >= limit) {
+                    break;
+                }
+
+                String identifier = this.identifiers.get(key);
+                if (identifier != null && query.matches(key, identifier)) {
+                    keys.add(key);
+                }
+            }
+
+            List<DatabaseEntry<V>> entries = new ArrayList<>(this.readEntries(keys, identifier -> true));
+            if (!ordered) {
+                entries.sort(order.<V>comparator());
+                if (entries.size() > limit) {
+                    return new ArrayList<>(entries.subList(0, limit));
+                }
+            }
+
+            return entries;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit) {
+        return DatabasePage.query(this, afterKey, limit);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
+        return this.provider.supply(() -> this.identifiers.keySet().stream().map(this::readEntry).filter(Objects::nonNull));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> clear() {
+        return this.provider.supply(() -> {
+            this.lock.writeLock().lock();
+            try {
+                for (LogSegment segment : this.segments.values()) {
+                    segment.delete();
+                }
+
+                this.segments.clear();
+                this.index.clear();
+                this.identifiers.clear();
+                this.identifierIndex.clear();
+                this.sortedByIdentifier.clear();
+                this.activeSegment = this.openSegment(this.activeSegment.getId() + 1);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> getSize() {
+        return this.provider.supply(() -> (long) this.identifiers.size());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Iterator<V>> iterator() {
+        return this.provider.supply(() -> this.streamValues().iterator());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Spliterator<V>> spliterator() {
+        return this.provider.supply(() -> this.streamValues().spliterator());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<V> consumer) {
+        return this.provider.supply(() -> {
+            this.streamValues().forEach(consumer);
+            return null;
+        });
+    }
+
+    /**
+     * Compacts all segments except the newest one in which at least half of the bytes belong to dead records. The
+     * provider runs the compaction periodically in the background.
+     */
+    @NotNull
+    public CompletableFuture<Void> compact() {
+        return this.provider.supply(() -> {
+            this.compactionLock.lock();
+            try {
+                for (LogSegment segment : new ArrayList<>(this.segments.values())) {
+                    if (segment != this.activeSegment && segment.deadBytes() >= segment.size() * COMPACTION_THRESHOLD) {
+                        this.compact(segment);
+                    }
+                }
+            } finally {
+                this.compactionLock.unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+
+    void close() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            for (LogSegment segment : this.segments.values()) {
+                segment.force();
+                segment.close();
+            }
+
+            this.index.close();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + LogSegment.FILE_SUFFIX)) {
+            for (Path path : stream) {
+                String fileName = path.getFileName().toString();
+                ids.add(Integer.parseInt(fileName.substring(0, fileName.length() - LogSegment.FILE_SUFFIX.length())));
+            }
+        }
+
+        ids.sort(Comparator.naturalOrder());
+        for (int id : ids) {
+            LogSegment segment = LogSegment.open(this.directory, id);
+            this.segments.put(id, segment);
+
+            try (LogReader reader = new LogReader(segment, this.provider.getAllocator())) {
+                while (reader.next()) {
+                    this.apply(reader.buffer(), reader.recordStart(), segment, (int) reader.recordOffset(), reader.recordLength());
+                }
+
+                if (reader.validEnd() < segment.size()) {
+                    System.err.println("Truncating segment " + segment.getPath() + " to the last valid record at " + reader.validEnd()
+                            + ", dropping " + (segment.size() - reader.validEnd()) + " bytes");
+                    segment.truncate(reader.validEnd());
+                }
+            }
+        }
+
+        this.activeSegment = this.segments.isEmpty() ? this.openSegment(1) : this.segments.lastEntry().getValue();
+    }
+
+    private void write(@NotNull RecordWriter writer) throws IOException {
+        // the records are encoded before taking the lock, only the append and the index update are exclusive
+        ByteBuf buffer = this.provider.getAllocator().heapBuffer();
+        try {
+            writer.write(buffer);
+
+            this.lock.writeLock().lock();
+            try {
+                this.appendLocked(buffer);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private void removeLocked(@NotNull Collection<String> keys, @Nullable String identifier) throws IOException {
+        ByteBuf buffer = this.provider.getAllocator().heapBuffer();
+        try {
+            for (String key : keys) {
+                String current = this.identifiers.get(key);
+                if (current != null && (identifier == null || identifier.equals(current))) {
+                    LogRecord.write(buffer, LogRecord.DELETE, key, current, null);
+                }
+            }
+
+            if (buffer.isReadable()) {
+                this.appendLocked(buffer);
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private void appendLocked(@NotNull ByteBuf records) throws IOException {
+        int length = records.readableBytes();
+        if (this.activeSegment.size() > 0 && this.activeSegment.size() + length > this.provider.getSegmentSize()) {
+            if (this.provider.isSyncWrites()) {
+                this.activeSegment.force();
+            }
+
+            this.activeSegment = this.openSegment(this.activeSegment.getId() + 1);
+        }
+
+        if (this.activeSegment.size() + length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unable to append " + length + " bytes to segment " + this.activeSegment.getPath());
+        }
+
+        int offset = (int) this.activeSegment.append(records);
+        if (this.provider.isSyncWrites()) {
+            this.activeSegment.force();
+        }
+
+        for (int start = records.readerIndex(); start < records.writerIndex(); ) {
+            int recordLength = records.getInt(start);
+            this.apply(records, start, this.activeSegment, offset + start - records.readerIndex(), recordLength);
+            start += recordLength;
+        }
+    }
+
+    private void apply(@NotNull ByteBuf record, int start, @NotNull LogSegment segment, int offset, int length) throws IOException {
+        byte recordType = LogRecord.type(record, start);
+        String key = LogRecord.key(record, start);
+        long hash = KeyHashing.hash(key);
+
+        String previous = this.identifiers.get(key);
+        if (recordType == LogRecord.DELETE) {
+            if (previous != null) {
+                int slot = this.index.locate(hash, this.keyMatcher(key));
+                this.segments.get(this.index.segment(slot)).addDeadBytes(this.index.length(slot));
+                this.index.remove(slot);
+                this.identifiers.remove(key);
+                this.unindexIdentifier(key, previous);
+            }
+
+            // a delete record is dead from the beginning, it is only kept until the records it shadows are compacted
+            segment.addDeadBytes(length);
+            return;
+        }
+
+        String identifier = LogRecord.identifier(record, start);
+        if (previous == null) {
+            this.index.insert(hash, segment.getId(), offset, length);
+        } else {
+            int slot = this.index.locate(hash, this.keyMatcher(key));
+            this.segments.get(this.index.segment(slot)).addDeadBytes(this.index.length(slot));
+            this.index.update(slot, segment.getId(), offset, length);
+            if (previous.equals(identifier)) {
+                return;
+            }
+
+            this.unindexIdentifier(key, previous);
+        }
+
+        this.identifiers.put(key, identifier);
+        this.indexIdentifier(key, identifier);
+    }
+
+    private void compact(@NotNull LogSegment segment) throws IOException {
+        boolean oldest = segment.getId() == this.segments.firstKey();
+        int firstTargetSegment = this.activeSegment.getId();
+        long validEnd;
+        try (LogReader reader = new LogReader(segment, this.provider.getAllocator())) {
+            while (reader.next()) {
+                ByteBuf record = reader.buffer();
+                int start = reader.recordStart();
+                String key = LogRecord.key(record, start);
+
+                this.lock.writeLock().lock();
+                try {
+                    if (LogRecord.type(record, start) == LogRecord.PUT) {
+                        if (this.identifiers.containsKey(key)) {
+                            int slot = this.index.locate(KeyHashing.hash(key), this.keyMatcher(key));
+                            if (this.index.segment(slot) == segment.getId() && this.index.offset(slot) == reader.recordOffset()) {
+                                this.relocateLocked(record.slice(start, reader.recordLength()), slot);
+                            }
+                        }
+                    } else if (!oldest && !this.identifiers.containsKey(key)) {
+                        // older segments may still contain the records deleted by this one
+                        ByteBuf copy = record.slice(start, reader.recordLength());
+                        this.rollIfNeeded(copy.readableBytes());
+                        this.activeSegment.append(copy);
+                        this.activeSegment.addDeadBytes(copy.readableBytes());
+                    }
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
+            }
+
+            validEnd = reader.validEnd();
+        }
+
+        if (validEnd < segment.size()) {
+            System.err.println("Unable to compact segment " + segment.getPath() + ", invalid record at " + validEnd);
+            return;
+        }
+
+        // the copied records have to be on the disk before the segment holding the only other copy is deleted
+        for (LogSegment target : this.segments.tailMap(firstTargetSegment, true).values()) {
+            target.force();
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            this.segments.remove(segment.getId());
+            segment.delete();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void relocateLocked(@NotNull ByteBuf record, int slot) throws IOException {
+        int length = record.readableBytes();
+        this.rollIfNeeded(length);
+        int offset = (int) this.activeSegment.append(record);
+        this.index.update(slot, this.activeSegment.getId(), offset, length);
+    }
+
+    private void rollIfNeeded(int length) throws IOException {
+        if (this.activeSegment.size() > 0 && this.activeSegment.size() + length > this.provider.getSegmentSize()) {
+            this.activeSegment = this.openSegment(this.activeSegment.getId() + 1);
+        }
+    }
+
+    @NotNull
+    private LogSegment openSegment(int id) throws IOException {
+        LogSegment segment = LogSegment.open(this.directory, id);
+        this.segments.put(id, segment);
+        return segment;
+    }
+
+    @Nullable
+    private ByteBuf readRecord(@NotNull String key) throws IOException {
+        this.lock.readLock().lock();
+        try {
+            return this.identifiers.containsKey(key) ? this.readRecordLocked(key) : null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @NotNull
+    private ByteBuf readRecordLocked(@NotNull String key) throws IOException {
+        int slot = this.index.locate(KeyHashing.hash(key), this.keyMatcher(key));
+        if (slot == -1) {
+            throw new IllegalStateException("Index of database " + this.name + " has no location for key " + key);
+        }
+
+        return this.read(this.index.segment(slot), this.index.offset(slot), this.index.length(slot));
+    }
+
+    @NotNull
+    private ByteBuf read(int segmentId, int offset, int length) throws IOException {
+        ByteBuf buffer = this.provider.getAllocator().heapBuffer(length);
+        try {
+            this.segments.get(segmentId).read(buffer, offset, length);
+            return buffer;
+        } catch (final IOException | RuntimeException exception) {
+            buffer.release();
+            throw exception;
+        }
+    }
+
+    @NotNull
+    private MappedIndex.LocationMatcher keyMatcher(@NotNull String key) {
+        return (segment, offset, length) -> {
+            try {
+                ByteBuf record = this.read(segment, offset, length);
+                try {
+                    return key.equals(LogRecord.key(record, 0));
+                } finally {
+                    record.release();
+                }
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        };
+    }
+
+    private void indexIdentifier(@NotNull String key, @NotNull String identifier) {
+        this.identifierIndex.computeIfAbsent(identifier, i -> ConcurrentHashMap.newKeySet()).add(key);
+        this.sortedByIdentifier.add(new IdentifierKey(key, identifier));
+    }
+
+    private void unindexIdentifier(@NotNull String key, @NotNull String identifier) {
+        this.identifierIndex.computeIfPresent(identifier, (i, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+        this.sortedByIdentifier.remove(new IdentifierKey(key, identifier));
+    }
+
+    @NotNull
+    private Collection<DatabaseEntry<V>> readEntries(@NotNull Collection<String> keys, @NotNull Predicate<String> identifierFilter) throws IOException {
+        Collection<DatabaseEntry<V>> entries = new ArrayList<>();
+        for (String key : keys) {
+            String identifier = this.identifiers.get(key);
+            if (identifier != null && identifierFilter.test(identifier)) {
+                DatabaseEntry<V> entry = this.readEntry(key);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    @Nullable
+    private DatabaseEntry<V> readEntry(@NotNull String key) {
+        try {
+            ByteBuf record = this.readRecord(key);
+            if (record == null) {
+                return null;
+            }
+
+            try {
+                String identifier = LogRecord.identifier(record, 0);
+                byte[] data = ByteBufUtil.getBytes(record, LogRecord.valueOffset(record, 0), record.writerIndex() - LogRecord.valueOffset(record, 0));
+                // keep the raw bytes and only decode them once the value is actually requested
+                return DefaultDatabaseEntry.lazy(key, identifier, () -> this.decodeValue(Unpooled.wrappedBuffer(data)), this);
+            } finally {
+                record.release();
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Nullable
+    private V readValue(@NotNull String key) throws IOException {
+        ByteBuf record = this.readRecord(key);
+        if (record == null) {
+            return null;
+        }
+
+        try {
+            return this.decode(record);
+        } finally {
+            record.release();
+        }
+    }
+
+    @NotNull
+    private Stream<V> streamValues() {
+        return this.identifiers.keySet().stream().map(key -> {
+            try {
+                return this.readValue(key);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }).filter(Objects::nonNull);
+    }
+
+    @NotNull
+    private ByteBuf encode(@NotNull V value) {
+        int sizeHint = value.estimateSize();
+        ByteBuf buffer = sizeHint > 0
+                ? this.provider.getAllocator().heapBuffer(sizeHint)
+                : this.provider.getAllocator().heapBuffer();
+        try {
+            value.serialize(new DataBuffer(buffer));
+            return buffer;
+        } catch (final RuntimeException exception) {
+            buffer.release();
+            throw exception;
+        }
+    }
+
+    @Nullable
+    private V decode(@NotNull ByteBuf record) {
+        record.readerIndex(LogRecord.valueOffset(record, 0));
+        return this.decodeValue(record);
+    }
+
+    @Nullable
+    private V decodeValue(@NotNull ByteBuf value) {
+        V instance = DatabaseObjectFactory.newInstance(this.factory, this.type);
+        if (instance == null) {
+            return null;
+        }
+
+        instance.deserialize(new DataBuffer(value));
+        return instance;
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+
+        void write(@NotNull ByteBuf buffer);
+    }
+
+    private static final class IdentifierKey {
+
+        private static final Comparator<IdentifierKey> ORDER = Comparator.<IdentifierKey>comparingDouble(key -> key.numericIdentifier)
+                .thenComparing(key -> key.key, DatabaseQuery::compareCodePoints);
+
+        private IdentifierKey(@NotNull String key, @NotNull String identifier) {
+            this.key = key;
+            this.numericIdentifier = DatabaseQuery.numericValue(identifier);
+        }
+
+        private final String key;
+        private final double numericIdentifier;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.file;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.DatabaseProvider;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A database provider storing every database in a directory of append-only log segments. Reads and writes only
+ * touch the page cache unless {@code syncWrites} is enabled, so all operations run on the calling thread and return
+ * already completed futures. Segments with many dead records are compacted periodically in the background.
+ */
+public class FileDatabaseProvider implements DatabaseProvider {
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long COMPACTION_INTERVAL_SECONDS = 30;
+
+    private final Map<String, FileDatabase<? extends DatabaseObject>> databases = new ConcurrentHashMap<>();
+
+    public FileDatabaseProvider(@NotNull Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    public FileDatabaseProvider(@NotNull Path directory, int segmentSize, boolean syncWrites) {
+        this(directory, segmentSize, syncWrites, PooledByteBufAllocator.DEFAULT);
+    }
+
+    public FileDatabaseProvider(@NotNull Path directory, int segmentSize, boolean syncWrites, @NotNull ByteBufAllocator allocator) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive, got " + segmentSize);
+        }
+
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+        this.allocator = allocator;
+        this.compactionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "database-file-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compactionExecutor.scheduleWithFixedDelay(this::compactAll, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final boolean syncWrites;
+
+    private final ByteBufAllocator allocator;
+
+    private final ScheduledExecutorService compactionExecutor;
+
+    private volatile boolean connected = true;
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> isConnected() {
+        return CompletableFuture.completedFuture(this.connected);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> closeConnection() {
+        return this.supply(() -> {
+            this.connected = false;
+            this.compactionExecutor.shutdown();
+            for (FileDatabase<? extends DatabaseObject> database : this.databases.values()) {
+                database.close();
+            }
+
+            this.databases.clear();
+            return true;
+        });
+    }
+
+    @Override
+    public @NotNull <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory) {
+        return this.getFileDatabase(name, type, factory);
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <V extends DatabaseObject> FileDatabase<V> getFileDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory) {
+        return (FileDatabase<V>) this.databases.computeIfAbsent(checkName(name), databaseName -> {
+            try {
+                return new FileDatabase<>(this, databaseName, type, factory);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException("Unable to open database " + databaseName, exception);
+            }
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> existsDatabase(@NotNull String name) {
+        return this.supply(() -> this.databases.containsKey(name) || Files.isDirectory(this.directory.resolve(checkName(name))));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> deleteDatabase(@NotNull String name) {
+        return this.supply(() -> {
+            Path databaseDirectory = this.directory.resolve(checkName(name));
+            FileDatabase<? extends DatabaseObject> database = this.databases.remove(name);
+            if (database != null) {
+                database.close();
+            }
+
+            if (!Files.isDirectory(databaseDirectory)) {
+                return false;
+            }
+
+            try (Stream<Path> paths = Files.walk(databaseDirectory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                    Files.delete(path);
+                }
+            }
+
+            return true;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getDatabaseNames() {
+        return this.supply(() -> {
+            Collection<String> names = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, Files::isDirectory)) {
+                for (Path path : stream) {
+                    names.add(path.getFileName().toString());
+                }
+            }
+
+            return names;
+        });
+    }
+
+    @NotNull
+    Path getDirectory() {
+        return this.directory;
+    }
+
+    int getSegmentSize() {
+        return this.segmentSize;
+    }
+
+    boolean isSyncWrites() {
+        return this.syncWrites;
+    }
+
+    @NotNull
+    ByteBufAllocator getAllocator() {
+        return this.allocator;
+    }
+
+    @NotNull
+    final <T> CompletableFuture<T> supply(@NotNull IOSupplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(supplier.get());
+        } catch (final IOException | RuntimeException exception) {
+            future.completeExceptionally(exception);
+        }
+
+        return future;
+    }
+
+    private void compactAll() {
+        for (FileDatabase<? extends DatabaseObject> database : this.databases.values()) {
+            database.compact().exceptionally(throwable -> {
+                System.err.println("Unable to compact database " + database.getName());
+                throwable.printStackTrace();
+                return null;
+            });
+        }
+    }
+
+    @NotNull
+    private static String checkName(@NotNull String name) {
+        if (name.isEmpty() || name.equals(".") || name.equals("..") || name.indexOf('/') != -1 || name.indexOf('\\') != -1) {
+            throw new IllegalArgumentException("Invalid database name " + name);
+        }
+
+        return name;
+    }
+}
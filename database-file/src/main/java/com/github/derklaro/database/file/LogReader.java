@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.file;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Reads the records of a segment sequentially. Reading stops at the end of the segment or at the first record
+ * which is truncated or does not match its checksum, {@link #validEnd()} is the end of the last valid record.
+ */
+final class LogReader implements AutoCloseable {
+
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    LogReader(@NotNull LogSegment segment, @NotNull ByteBufAllocator allocator) {
+        this.segment = segment;
+        this.end = segment.size();
+        this.window = allocator.heapBuffer(WINDOW_SIZE);
+    }
+
+    private final LogSegment segment;
+
+    private final long end;
+
+    private final ByteBuf window;
+
+    private long filePosition;
+
+    private long position;
+
+    private int recordStart;
+
+    private int recordLength;
+
+    boolean next() throws IOException {
+        this.window.skipBytes(this.recordLength);
+        this.recordLength = 0;
+
+        if (!this.ensureReadable(LogRecord.HEADER_SIZE)) {
+            return false;
+        }
+
+        int length = this.window.getInt(this.window.readerIndex());
+        if (length < LogRecord.HEADER_SIZE || this.position + length > this.end || !this.ensureReadable(length)) {
+            return false;
+        }
+
+        int start = this.window.readerIndex();
+        if (!LogRecord.isValid(this.window, start, length)) {
+            return false;
+        }
+
+        this.recordStart = start;
+        this.recordLength = length;
+        this.position += length;
+        return true;
+    }
+
+    /**
+     * Returns the buffer holding the current record, the record starts at {@link #recordStart()}.
+     */
+    @NotNull
+    ByteBuf buffer() {
+        return this.window;
+    }
+
+    int recordStart() {
+        return this.recordStart;
+    }
+
+    int recordLength() {
+        return this.recordLength;
+    }
+
+    long recordOffset() {
+        return this.position - this.recordLength;
+    }
+
+    long validEnd() {
+        return this.position;
+    }
+
+    private boolean ensureReadable(int length) throws IOException {
+        if (this.window.readableBytes() >= length) {
+            return true;
+        }
+
+        this.window.discardReadBytes();
+        this.window.ensureWritable(Math.max(length, WINDOW_SIZE));
+        while (this.window.readableBytes() < length && this.filePosition < this.end) {
+            int toRead = (int) Math.min(this.window.writableBytes(), this.end - this.filePosition);
+            int read = this.window.writeBytes(this.segment.getChannel(), this.filePosition, toRead);
+            if (read < 0) {
+                break;
+            }
+
+            this.filePosition += read;
+        }
+
+        return this.window.readableBytes() >= length;
+    }
+
+    @Override
+    public void close() {
+        this.window.release();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.file;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * The layout of a single record in a log segment:
+ * <pre>
+ * int  total length of the record including this header
+ * int  crc32 of everything following the checksum
+ * byte type, either {@link #PUT} or {@link #DELETE}
+ * int  key length
+ * int  identifier length
+ * key and identifier as utf-8, followed by the serialized value until the end of the record
+ * </pre>
+ */
+final class LogRecord {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    static final int HEADER_SIZE = 17;
+    static final int CHECKSUM_OFFSET = 4;
+    static final int TYPE_OFFSET = 8;
+    static final int KEY_LENGTH_OFFSET = 9;
+    static final int IDENTIFIER_LENGTH_OFFSET = 13;
+
+    private LogRecord() {
+        throw new UnsupportedOperationException();
+    }
+
+    static int write(@NotNull ByteBuf target, byte type, @NotNull String key, @NotNull String identifier, @Nullable ByteBuf value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] identifierBytes = identifier.getBytes(StandardCharsets.UTF_8);
+        int valueLength = value == null ? 0 : value.readableBytes();
+        int length = HEADER_SIZE + keyBytes.length + identifierBytes.length + valueLength;
+
+        target.ensureWritable(length);
+        int start = target.writerIndex();
+        target.writeInt(length);
+        target.writeInt(0);
+        target.writeByte(type);
+        target.writeInt(keyBytes.length);
+        target.writeInt(identifierBytes.length);
+        target.writeBytes(keyBytes);
+        target.writeBytes(identifierBytes);
+        if (value != null) {
+            target.writeBytes(value, value.readerIndex(), valueLength);
+        }
+
+        target.setInt(start + CHECKSUM_OFFSET, checksum(target, start, length));
+        return length;
+    }
+
+    static int checksum(@NotNull ByteBuf record, int start, int length) {
+        CRC32 crc = new CRC32();
+        if (record.hasArray()) {
+            crc.update(record.array(), record.arrayOffset() + start + TYPE_OFFSET, length - TYPE_OFFSET);
+        } else {
+            crc.update(record.nioBuffer(start + TYPE_OFFSET, length - TYPE_OFFSET));
+        }
+
+        return (int) crc.getValue();
+    }
+
+    static boolean isValid(@NotNull ByteBuf record, int start, int length) {
+        int keyLength = record.getInt(start + KEY_LENGTH_OFFSET);
+        int identifierLength = record.getInt(start + IDENTIFIER_LENGTH_OFFSET);
+        return keyLength >= 0 && identifierLength >= 0 && (long) HEADER_SIZE + keyLength + identifierLength <= length
+                && record.getInt(start + CHECKSUM_OFFSET) == checksum(record, start, length);
+    }
+
+    static byte type(@NotNull ByteBuf record, int start) {
+        return record.getByte(start + TYPE_OFFSET);
+    }
+
+    @NotNull
+    static String key(@NotNull ByteBuf record, int start) {
+        return record.toString(start + HEADER_SIZE, record.getInt(start + KEY_LENGTH_OFFSET), StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    static String identifier(@NotNull ByteBuf record, int start) {
+        int keyLength = record.getInt(start + KEY_LENGTH_OFFSET);
+        return record.toString(start + HEADER_SIZE + keyLength, record.getInt(start + IDENTIFIER_LENGTH_OFFSET), StandardCharsets.UTF_8);
+    }
+
+    static int valueOffset(@NotNull ByteBuf record, int start) {
+        return start + HEADER_SIZE + record.getInt(start + KEY_LENGTH_OFFSET) + record.getInt(start + IDENTIFIER_LENGTH_OFFSET);
+    }
+}
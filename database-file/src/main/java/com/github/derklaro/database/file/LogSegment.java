@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.file;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One file of the append-only log. Only the newest segment of a database is appended to, all others are immutable
+ * until the compaction copies their live records into the newest segment and deletes them.
+ */
+final class LogSegment implements Closeable {
+
+    static final String FILE_SUFFIX = ".log";
+
+    private LogSegment(int id, @NotNull Path path, @NotNull FileChannel channel) throws IOException {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    private final int id;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private volatile long size;
+
+    private volatile long deadBytes;
+
+    @NotNull
+    static LogSegment open(@NotNull Path directory, int id) throws IOException {
+        Path path = directory.resolve(String.format("%010d%s", id, FILE_SUFFIX));
+        return new LogSegment(id, path, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    long append(@NotNull ByteBuf buffer) throws IOException {
+        long position = this.size;
+        int length = buffer.readableBytes();
+        for (int written = 0; written < length; ) {
+            written += buffer.getBytes(buffer.readerIndex() + written, this.channel, position + written, length - written);
+        }
+
+        this.size = position + length;
+        return position;
+    }
+
+    void read(@NotNull ByteBuf target, long position, int length) throws IOException {
+        for (int read = 0; read < length; ) {
+            int count = target.writeBytes(this.channel, position + read, length - read);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of segment " + this.path + " at " + (position + read));
+            }
+
+            read += count;
+        }
+    }
+
+    void truncate(long size) throws IOException {
+        this.channel.truncate(size);
+        this.size = size;
+    }
+
+    void force() throws IOException {
+        this.channel.force(false);
+    }
+
+    void delete() throws IOException {
+        this.close();
+        Files.deleteIfExists(this.path);
+    }
+
+    void addDeadBytes(long bytes) {
+        this.deadBytes += bytes;
+    }
+
+    int getId() {
+        return this.id;
+    }
+
+    @NotNull
+    Path getPath() {
+        return this.path;
+    }
+
+    @NotNull
+    FileChannel getChannel() {
+        return this.channel;
+    }
+
+    long size() {
+        return this.size;
+    }
+
+    long deadBytes() {
+        return this.deadBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.file;
+
+import com.github.derklaro.database.api.util.KeyHashing;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped open addressing hash table from the hash of a key to the location of the latest record of the
+ * key. Collisions are resolved with linear probing and removals shift the following slots back, so there are no
+ * tombstones. The slots only store the 64 bit hash of a key, callers have to verify the key of a slot through a
+ * {@link LocationMatcher} if more than one slot has the same hash.
+ * <p>
+ * The index is rebuilt from the log when a database is opened, the file only exists to keep the index off-heap.
+ */
+final class MappedIndex implements Closeable {
+
+    private static final long EMPTY = 0;
+    private static final int SLOT_SIZE = 20;
+    private static final int MINIMUM_CAPACITY = 1024;
+    private static final int MAXIMUM_CAPACITY = 1 << 26;
+    private static final float LOAD_FACTOR = 0.7F;
+
+    MappedIndex(@NotNull Path path) throws IOException {
+        this.path = path;
+        this.map(path, MINIMUM_CAPACITY);
+    }
+
+    private final Path path;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private int capacity;
+
+    private int mask;
+
+    private int size;
+
+    /**
+     * Finds the slot of a key which is known to be in the index. The matcher is only called to tell slots with the
+     * same hash apart.
+     */
+    int locate(long hash, @NotNull LocationMatcher matcher) {
+        int candidate = -1;
+        for (int slot = this.idealSlot(hash); ; slot = (slot + 1) & this.mask) {
+            long current = this.hash(slot);
+            if (current == EMPTY) {
+                return candidate;
+            }
+
+            if (current == hash) {
+                if (candidate != -1) {
+                    return this.resolveCollision(hash, matcher);
+                }
+
+                candidate = slot;
+            }
+        }
+    }
+
+    int segment(int slot) {
+        return this.buffer.getInt(this.position(slot) + 8);
+    }
+
+    int offset(int slot) {
+        return this.buffer.getInt(this.position(slot) + 12);
+    }
+
+    int length(int slot) {
+        return this.buffer.getInt(this.position(slot) + 16);
+    }
+
+    void update(int slot, int segment, int offset, int length) {
+        int position = this.position(slot);
+        this.buffer.putInt(position + 8, segment);
+        this.buffer.putInt(position + 12, offset);
+        this.buffer.putInt(position + 16, length);
+    }
+
+    void insert(long hash, int segment, int offset, int length) throws IOException {
+        if (this.size + 1 > this.capacity * LOAD_FACTOR) {
+            this.resize(this.capacity << 1);
+        }
+
+        int slot = this.idealSlot(hash);
+        while (this.hash(slot) != EMPTY) {
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.buffer.putLong(this.position(slot), hash);
+        this.update(slot, segment, offset, length);
+        this.size++;
+    }
+
+    void remove(int slot) {
+        int hole = slot;
+        for (int next = (hole + 1) & this.mask; ; next = (next + 1) & this.mask) {
+            long hash = this.hash(next);
+            if (hash == EMPTY) {
+                break;
+            }
+
+            if (KeyHashing.canShiftInto(hash, next, hole, this.mask)) {
+                this.copy(next, hole);
+                hole = next;
+            }
+        }
+
+        this.buffer.putLong(this.position(hole), EMPTY);
+        this.size--;
+    }
+
+    void clear() throws IOException {
+        this.channel.close();
+        this.map(this.path, MINIMUM_CAPACITY);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.buffer.force();
+        this.channel.close();
+    }
+
+    private int resolveCollision(long hash, @NotNull LocationMatcher matcher) {
+        for (int slot = this.idealSlot(hash); this.hash(slot) != EMPTY; slot = (slot + 1) & this.mask) {
+            if (this.hash(slot) == hash && matcher.matches(this.segment(slot), this.offset(slot), this.length(slot))) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    private void resize(int capacity) throws IOException {
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Index " + this.path + " exceeds the maximum capacity of " + MAXIMUM_CAPACITY + " keys");
+        }
+
+        FileChannel oldChannel = this.channel;
+        MappedByteBuffer oldBuffer = this.buffer;
+        int oldCapacity = this.capacity;
+
+        Path resizePath = this.path.resolveSibling(this.path.getFileName() + ".resize");
+        this.map(resizePath, capacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int position = slot * SLOT_SIZE;
+            long hash = oldBuffer.getLong(position);
+            if (hash != EMPTY) {
+                this.insert(hash, oldBuffer.getInt(position + 8), oldBuffer.getInt(position + 12), oldBuffer.getInt(position + 16));
+            }
+        }
+
+        oldChannel.close();
+        Files.move(resizePath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void map(@NotNull Path path, int capacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * SLOT_SIZE);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.size = 0;
+    }
+
+    private void copy(int from, int to) {
+        int fromPosition = this.position(from);
+        int toPosition = this.position(to);
+        this.buffer.putLong(toPosition, this.buffer.getLong(fromPosition));
+        this.buffer.putInt(toPosition + 8, this.buffer.getInt(fromPosition + 8));
+        this.buffer.putInt(toPosition + 12, this.buffer.getInt(fromPosition + 12));
+        this.buffer.putInt(toPosition + 16, this.buffer.getInt(fromPosition + 16));
+    }
+
+    private long hash(int slot) {
+        return this.buffer.getLong(this.position(slot));
+    }
+
+    private int idealSlot(long hash) {
+        return KeyHashing.idealSlot(hash, this.mask);
+    }
+
+    private int position(int slot) {
+        return slot * SLOT_SIZE;
+    }
+
+    @FunctionalInterface
+    interface LocationMatcher {
+
+        boolean matches(int segment, int offset, int length);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.file;
+
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.query.DatabasePage;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileDatabaseTest {
+
+    // three records with a value of this size fill a segment, the fourth one starts the next segment
+    private static final int SEGMENT_SIZE = 3500;
+    private static final int LARGE_VALUE_LENGTH = 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenReplaysPutsUpdatesAndDeletes() {
+        FileDatabaseProvider provider = this.openProvider();
+        FileDatabase<TestObject> database = this.openDatabase(provider);
+        database.insert("a", "1", new TestObject("first")).join();
+        database.insert("b", "1", new TestObject("second")).join();
+        database.insert("a", "2", new TestObject("third")).join();
+        database.insert("c", "3", new TestObject("fourth")).join();
+        database.remove("b").join();
+        database.updateIdentifier("c", "4").join();
+        provider.closeConnection().join();
+
+        provider = this.openProvider();
+        database = this.openDatabase(provider);
+        assertEquals(2L, database.getSize().join());
+        assertEquals(Optional.of("third"), value(database, "a"));
+        assertEquals(Optional.empty(), value(database, "b"));
+        assertEquals(Optional.of("fourth"), database.get("unknown", "4").join().map(object -> object.value));
+        provider.closeConnection().join();
+    }
+
+    @Test
+    void tornRecordAtTheEndIsTruncated() throws IOException {
+        FileDatabaseProvider provider = this.openProvider();
+        FileDatabase<TestObject> database = this.openDatabase(provider);
+        database.insert("a", "1", new TestObject("first")).join();
+        database.insert("b", "1", new TestObject("second")).join();
+        provider.closeConnection().join();
+
+        // a crash in the middle of an append leaves the beginning of a record behind
+        Path segment = this.segmentFiles()[0];
+        long validSize = Files.size(segment);
+        byte[] tornRecord = Arrays.copyOf(Files.readAllBytes(segment), LogRecord.HEADER_SIZE + 2);
+        Files.write(segment, tornRecord, StandardOpenOption.APPEND);
+
+        provider = this.openProvider();
+        database = this.openDatabase(provider);
+        assertEquals(validSize, Files.size(segment));
+        assertEquals(Optional.of("first"), value(database, "a"));
+        assertEquals(Optional.of("second"), value(database, "b"));
+
+        // the records appended after the truncation have to be readable after the next restart
+        database.insert("c", "1", new TestObject("third")).join();
+        provider.closeConnection().join();
+
+        provider = this.openProvider();
+        database = this.openDatabase(provider);
+        assertEquals(3L, database.getSize().join());
+        assertEquals(Optional.of("third"), value(database, "c"));
+        provider.closeConnection().join();
+    }
+
+    @Test
+    void recordWithInvalidChecksumIsDropped() throws IOException {
+        FileDatabaseProvider provider = this.openProvider();
+        FileDatabase<TestObject> database = this.openDatabase(provider);
+        database.insert("a", "1", new TestObject("first")).join();
+        database.insert("a", "1", new TestObject("second")).join();
+        provider.closeConnection().join();
+
+        Path segment = this.segmentFiles()[0];
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, channel.size() - 1);
+            lastByte.put(0, (byte) ~lastByte.get(0));
+            lastByte.rewind();
+            channel.write(lastByte, channel.size() - 1);
+        }
+
+        provider = this.openProvider();
+        database = this.openDatabase(provider);
+        assertEquals(Optional.of("first"), value(database, "a"));
+        provider.closeConnection().join();
+    }
+
+    @Test
+    void compactionKeepsLiveRecordsAcrossReopen() throws IOException {
+        FileDatabaseProvider provider = this.openProvider();
+        FileDatabase<TestObject> database = this.openDatabase(provider);
+
+        Random random = new Random(7);
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            String key = "key-" + random.nextInt(10);
+            String value = largeValue(i);
+            database.insert(key, "1", new TestObject(value)).join();
+            expected.put(key, value);
+        }
+
+        database.remove("key-0").join();
+        expected.remove("key-0");
+
+        int segmentsBefore = this.segmentFiles().length;
+        database.compact().join();
+        assertTrue(this.segmentFiles().length < segmentsBefore, "compaction did not delete any segment");
+        provider.closeConnection().join();
+
+        provider = this.openProvider();
+        database = this.openDatabase(provider);
+        assertEquals((long) expected.size(), database.getSize().join());
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(Optional.of(entry.getValue()), value(database, entry.getKey()));
+        }
+
+        assertEquals(Optional.empty(), value(database, "key-0"));
+        provider.closeConnection().join();
+    }
+
+    @Test
+    void compactionCarriesDeleteRecordsOverWhileOlderSegmentsExist() throws IOException {
+        FileDatabaseProvider provider = this.openProvider();
+        FileDatabase<TestObject> database = this.openDatabase(provider);
+
+        // segment 1: the deleted key and two live keys, it stays below the compaction threshold
+        database.insert("deleted", "1", new TestObject(largeValue(0))).join();
+        database.insert("live-0", "1", new TestObject(largeValue(1))).join();
+        database.insert("live-1", "1", new TestObject(largeValue(2))).join();
+
+        // segment 2: a live key, the delete record and two overwritten values, it is mostly dead
+        database.insert("live-2", "1", new TestObject(largeValue(3))).join();
+        database.remove("deleted").join();
+        database.insert("overwritten", "1", new TestObject(largeValue(4))).join();
+        database.insert("overwritten", "1", new TestObject(largeValue(5))).join();
+
+        // segment 3: the active segment
+        database.insert("overwritten", "1", new TestObject(largeValue(6))).join();
+        assertEquals(3, this.segmentFiles().length);
+
+        database.compact().join();
+        Path[] segments = this.segmentFiles();
+        assertTrue(Files.exists(this.directory.resolve("test").resolve(String.format("%010d%s", 1, LogSegment.FILE_SUFFIX))));
+        assertFalse(Files.exists(this.directory.resolve("test").resolve(String.format("%010d%s", 2, LogSegment.FILE_SUFFIX))));
+        assertEquals(2, segments.length);
+        provider.closeConnection().join();
+
+        provider = this.openProvider();
+        database = this.openDatabase(provider);
+        assertEquals(Optional.empty(), value(database, "deleted"));
+        assertEquals(Optional.of(largeValue(3)), value(database, "live-2"));
+        assertEquals(Optional.of(largeValue(6)), value(database, "overwritten"));
+        assertEquals(4L, database.getSize().join());
+        provider.closeConnection().join();
+    }
+
+    @Test
+    void pagesFollowTheCodePointOrder() {
+        FileDatabaseProvider provider = this.openProvider();
+        FileDatabase<TestObject> database = this.openDatabase(provider);
+        // U+E000 is greater than the surrogates of U+1F600 as UTF-16 unit, but smaller as code point
+        String privateUse = "\uE000";
+        String emoji = new String(Character.toChars(0x1F600));
+        for (String key : Arrays.asList(emoji, "b", privateUse, "a")) {
+            database.insert(key, "1", new TestObject(key)).join();
+        }
+
+        List<String> keys = new ArrayList<>();
+        String afterKey = null;
+        do {
+            DatabasePage<TestObject> page = database.page(afterKey, 1).join();
+            page.getEntries().forEach(entry -> keys.add(entry.getKey()));
+            afterKey = page.getNextKey();
+        } while (afterKey != null);
+
+        List<String> expected = Arrays.asList("a", "b", privateUse, emoji);
+        assertEquals(expected, keys);
+        assertEquals(expected, database.sortByIdentifier(10).join().stream().map(object -> object.value).collect(Collectors.toList()));
+        provider.closeConnection().join();
+    }
+
+    @NotNull
+    private FileDatabaseProvider openProvider() {
+        return new FileDatabaseProvider(this.directory, SEGMENT_SIZE, false);
+    }
+
+    @NotNull
+    private FileDatabase<TestObject> openDatabase(@NotNull FileDatabaseProvider provider) {
+        return provider.getFileDatabase("test", TestObject.class, TestObject::new);
+    }
+
+    @NotNull
+    private Path[] segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory.resolve("test"))) {
+            return files.filter(path -> path.getFileName().toString().endsWith(LogSegment.FILE_SUFFIX)).sorted().toArray(Path[]::new);
+        }
+    }
+
+    @NotNull
+    private static Optional<String> value(@NotNull FileDatabase<TestObject> database, @NotNull String key) {
+        return database.get(key, null).join().map(object -> object.value);
+    }
+
+    @NotNull
+    private static String largeValue(int seed) {
+        return Stream.generate(() -> Integer.toString(seed % 10)).limit(LARGE_VALUE_LENGTH).collect(Collectors.joining());
+    }
+
+    static final class TestObject implements DatabaseObject {
+
+        TestObject() {
+        }
+
+        TestObject(@NotNull String value) {
+            this.value = value;
+        }
+
+        private String value;
+
+        @Override
+        public void serialize(@NotNull DataBuffer buffer) {
+            buffer.putString(this.value);
+        }
+
+        @Override
+        public void deserialize(@NotNull DataBuffer buffer) {
+            this.value = buffer.readString();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedIndexTest {
+
+    // the index starts with 1024 slots and places a hash without high bits at the slot of its low ten bits
+    private static final int CAPACITY = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void removalShiftsCollidingSlotsBack() throws IOException {
+        try (MappedIndex index = new MappedIndex(this.directory.resolve("index"))) {
+            // three hashes sharing slot 1 followed by one whose ideal slot 2 is taken by them
+            index.insert(1, 1, 0, 0);
+            index.insert(1 + CAPACITY, 2, 0, 0);
+            index.insert(1 + 2 * CAPACITY, 3, 0, 0);
+            index.insert(2, 4, 0, 0);
+
+            index.remove(locate(index, 1 + CAPACITY));
+            assertEquals(3, index.size());
+            assertEquals(1, index.segment(locate(index, 1)));
+            assertEquals(3, index.segment(locate(index, 1 + 2 * CAPACITY)));
+            assertEquals(4, index.segment(locate(index, 2)));
+            assertEquals(-1, locate(index, 1 + CAPACITY));
+
+            // the hash with the ideal slot 2 moves back into its ideal slot
+            index.remove(locate(index, 1 + 2 * CAPACITY));
+            assertEquals(2, locate(index, 2));
+            assertEquals(1, locate(index, 1));
+        }
+    }
+
+    @Test
+    void removalShiftsSlotsBackAcrossTheEndOfTheTable() throws IOException {
+        try (MappedIndex index = new MappedIndex(this.directory.resolve("index"))) {
+            int lastSlot = CAPACITY - 1;
+            index.insert(lastSlot, 1, 0, 0);
+            index.insert(lastSlot + CAPACITY, 2, 0, 0);
+            index.insert(CAPACITY, 3, 0, 0);
+            assertEquals(0, locate(index, lastSlot + CAPACITY));
+            assertEquals(1, locate(index, CAPACITY));
+
+            index.remove(locate(index, lastSlot));
+            assertEquals(lastSlot, locate(index, lastSlot + CAPACITY));
+            assertEquals(0, locate(index, CAPACITY));
+            assertEquals(2, index.segment(locate(index, lastSlot + CAPACITY)));
+            assertEquals(3, index.segment(locate(index, CAPACITY)));
+        }
+    }
+
+    private static int locate(MappedIndex index, long hash) {
+        return index.locate(hash, (segment, offset, length) -> true);
+    }
+}
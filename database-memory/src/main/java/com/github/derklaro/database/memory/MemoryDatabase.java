@@ -0,0 +1,497 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.memory;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.objects.DatabaseObjectFactory;
+import com.github.derklaro.database.api.objects.DefaultDatabaseEntry;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class MemoryDatabase<V extends DatabaseObject> implements Database<V> {
+
+    MemoryDatabase(@NotNull MemoryDatabaseProvider provider, @NotNull String name, @NotNull Class<V> type,
+                   @NotNull Supplier<V> factory, @NotNull StorageMode storageMode) {
+        this.provider = provider;
+        this.name = name;
+        this.type = type;
+        this.factory = factory;
+        this.storageMode = storageMode;
+    }
+
+    private final MemoryDatabaseProvider provider;
+    private final String name;
+    private final Class<V> type;
+    private final Supplier<V> factory;
+    private final StorageMode storageMode;
+
+    // every write replaces the record of a key inside a compute call on this map, which also updates the other
+    // views; readers always resolve keys from the views against this map, so they never see removed records
+    private final ConcurrentMap<String, Record> records = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> identifierIndex = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<String> sortedKeys = new ConcurrentSkipListSet<>(DatabaseQuery::compareCodePoints);
+    private final ConcurrentSkipListSet<Record> sortedByIdentifier = new ConcurrentSkipListSet<>(Record.NUMERIC_IDENTIFIER_ORDER);
+
+    @Override
+    public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value) {
+        return this.provider.supply(() -> {
+            this.put(key, identifier, this.encode(value));
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries) {
+        return this.provider.supply(() -> {
+            for (Map.Entry<String, Map.Entry<String, V>> entry : entries.entrySet()) {
+                this.put(entry.getKey(), entry.getValue().getKey(), this.encode(entry.getValue().getValue()));
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier) {
+        return this.provider.supply(() -> {
+            Record record = this.records.get(key);
+            if (record == null && identifier != null) {
+                record = this.firstRecord(identifier);
+            }
+
+            return record == null ? Optional.empty() : Optional.ofNullable(this.decode(record));
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
+        return this.provider.supply(() -> {
+            this.records.computeIfPresent(key, (recordKey, previous) -> {
+                if (previous.identifier.equals(identifier)) {
+                    return previous;
+                }
+
+                Record record = new Record(recordKey, identifier, previous.value);
+                this.unindex(previous);
+                this.index(record);
+                return record;
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
+        return this.provider.supply(() -> {
+            this.delete(key, null);
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        return this.provider.supply(() -> {
+            for (String key : keys) {
+                this.delete(key, null);
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
+        return this.provider.supply(() -> {
+            Set<String> keys = this.identifierIndex.get(identifier);
+            if (keys != null) {
+                for (String key : new ArrayList<>(keys)) {
+                    this.delete(key, identifier);
+                }
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<V>> sortByIdentifier(int limit) {
+        return this.provider.supply(() -> {
+            Collection<V> results = new ArrayList<>();
+            for (Record record : this.identifierOrder()) {
+                if (results.size() >= limit) {
+                    break;
+                }
+
+                V value = this.decode(record);
+                if (value != null) {
+                    results.add(value);
+                }
+            }
+
+            return results;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getKeys() {
+        return this.provider.supply(() -> new ArrayList<>(this.records.keySet()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries() {
+        return this.provider.supply(() -> this.toEntries(this.records.values(), record -> true));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries(@NotNull Predicate<String> identifierFilter) {
+        return this.provider.supply(() -> this.toEntries(this.records.values(), record -> identifierFilter.test(record.identifier)));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<V>> entryFilter) {
+        return this.provider.supply(() -> this.records.values().stream().map(this::toEntry).filter(entryFilter).collect(Collectors.toList()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query) {
+        return this.provider.supply(() -> this.runQuery(query));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit) {
+        return DatabasePage.query(this, afterKey, limit);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
+        return this.provider.supply(() -> this.records.values().stream().map(this::toEntry));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> clear() {
+        return this.provider.supply(() -> {
+            for (String key : this.records.keySet()) {
+                this.delete(key, null);
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> getSize() {
+        return this.provider.supply(() -> (long) this.records.size());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Iterator<V>> iterator() {
+        return this.provider.supply(() -> this.streamValues().iterator());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Spliterator<V>> spliterator() {
+        return this.provider.supply(() -> this.streamValues().spliterator());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<V> consumer) {
+        return this.provider.supply(() -> {
+            this.streamValues().forEach(consumer);
+            return null;
+        });
+    }
+
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+
+    @NotNull
+    public StorageMode getStorageMode() {
+        return this.storageMode;
+    }
+
+    @NotNull
+    private Stream<V> streamValues() {
+        return this.records.values().stream().map(this::decode).filter(Objects::nonNull);
+    }
+
+    @NotNull
+    private Collection<DatabaseEntry<V>> runQuery(@NotNull DatabaseQuery query) {
+        int limit = query.getLimit() < 0 ? Integer.MAX_VALUE : query.getLimit();
+        DatabaseQuery.Order order = query.getOrder();
+
+        // walk one of the sorted views if it already has the requested order, so the scan can stop at the limit
+        Iterable<Record> source;
+        boolean ordered;
+        if (query.getKeys() == null && query.getIdentifiers() == null && order == DatabaseQuery.Order.KEY_ASCENDING) {
+            Set<String> keys = query.getKeyAfter() == null ? this.sortedKeys : this.sortedKeys.tailSet(query.getKeyAfter(), false);
+            source = this.resolve(keys);
+            ordered = true;
+        } else if (query.getKeys() == null && query.getIdentifiers() == null && order == DatabaseQuery.Order.IDENTIFIER_NUMERIC_ASCENDING) {
+            source = this.identifierOrder();
+            ordered = true;
+        } else {
+            source = this.candidates(query);
+            ordered = order == null;
+        }
+
+        List<DatabaseEntry<V>> results = new ArrayList<>();
+        for (Record record : source) {
+            if (ordered && results.size() >= limit) {
+                break;
+            }
+
+            if (query.matches(record.key, record.identifier)) {
+                results.add(this.toEntry(record));
+            }
+        }
+
+        if (!ordered) {
+            results.sort(order.<V>comparator());
+            if (results.size() > limit) {
+                return new ArrayList<>(results.subList(0, limit));
+            }
+        }
+
+        return results;
+    }
+
+    @NotNull
+    private Iterable<Record> candidates(@NotNull DatabaseQuery query) {
+        if (query.getKeys() != null) {
+            return this.resolve(new LinkedHashSet<>(query.getKeys()));
+        }
+
+        if (query.getIdentifiers() != null) {
+            Collection<String> keys = new ArrayList<>();
+            for (String identifier : new LinkedHashSet<>(query.getIdentifiers())) {
+                Set<String> identifierKeys = this.identifierIndex.get(identifier);
+                if (identifierKeys != null) {
+                    keys.addAll(identifierKeys);
+                }
+            }
+
+            return this.resolve(keys);
+        }
+
+        return this.records.values();
+    }
+
+    @NotNull
+    private Iterable<Record> identifierOrder() {
+        // the view keeps the record which was indexed first, resolve the current one which holds the latest value
+        return () -> this.sortedByIdentifier.stream()
+                .map(indexed -> {
+                    Record current = this.records.get(indexed.key);
+                    return current != null && current.identifier.equals(indexed.identifier) ? current : null;
+                })
+                .filter(Objects::nonNull)
+                .iterator();
+    }
+
+    @NotNull
+    private Iterable<Record> resolve(@NotNull Collection<String> keys) {
+        return () -> keys.stream().map(this.records::get).filter(Objects::nonNull).iterator();
+    }
+
+    @Nullable
+    private Record firstRecord(@NotNull String identifier) {
+        Set<String> keys = this.identifierIndex.get(identifier);
+        if (keys != null) {
+            for (String key : keys) {
+                Record record = this.records.get(key);
+                if (record != null && record.identifier.equals(identifier)) {
+                    return record;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void put(@NotNull String key, @NotNull String identifier, @NotNull Object value) {
+        this.records.compute(key, (recordKey, previous) -> {
+            if (previous != null && previous.identifier.equals(identifier)) {
+                // the position in all views stays the same, only the value has to be swapped
+                return previous.withValue(value);
+            }
+
+            Record record = new Record(recordKey, identifier, value);
+            if (previous == null) {
+                this.sortedKeys.add(recordKey);
+            } else {
+                this.unindex(previous);
+            }
+
+            this.index(record);
+            return record;
+        });
+    }
+
+    private void delete(@NotNull String key, @Nullable String identifier) {
+        this.records.computeIfPresent(key, (recordKey, previous) -> {
+            if (identifier != null && !identifier.equals(previous.identifier)) {
+                return previous;
+            }
+
+            this.unindex(previous);
+            this.sortedKeys.remove(recordKey);
+            return null;
+        });
+    }
+
+    private void index(@NotNull Record record) {
+        this.identifierIndex.compute(record.identifier, (identifier, keys) -> {
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
+            }
+
+            keys.add(record.key);
+            return keys;
+        });
+        this.sortedByIdentifier.add(record);
+    }
+
+    private void unindex(@NotNull Record record) {
+        this.identifierIndex.computeIfPresent(record.identifier, (identifier, keys) -> {
+            keys.remove(record.key);
+            return keys.isEmpty() ? null : keys;
+        });
+        this.sortedByIdentifier.remove(record);
+    }
+
+    @NotNull
+    private Collection<DatabaseEntry<V>> toEntries(@NotNull Collection<Record> records, @NotNull Predicate<Record> filter) {
+        Collection<DatabaseEntry<V>> results = new ArrayList<>();
+        for (Record record : records) {
+            if (filter.test(record)) {
+                results.add(this.toEntry(record));
+            }
+        }
+
+        return results;
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private DatabaseEntry<V> toEntry(@NotNull Record record) {
+        if (this.storageMode == StorageMode.LIVE_OBJECTS) {
+            return new DefaultDatabaseEntry<>(record.key, record.identifier, (V) record.value, this);
+        }
+
+        // only decode the stored bytes once the value is actually requested
+        return DefaultDatabaseEntry.lazy(record.key, record.identifier, () -> this.decode(record), this);
+    }
+
+    @NotNull
+    private Object encode(@NotNull V value) {
+        if (this.storageMode == StorageMode.LIVE_OBJECTS) {
+            return value;
+        }
+
+        int sizeHint = value.estimateSize();
+        ByteBuf buffer = sizeHint > 0
+                ? this.provider.getAllocator().heapBuffer(sizeHint)
+                : this.provider.getAllocator().heapBuffer();
+        try {
+            value.serialize(new DataBuffer(buffer));
+            return ByteBufUtil.getBytes(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private V decode(@NotNull Record record) {
+        if (this.storageMode == StorageMode.LIVE_OBJECTS) {
+            return (V) record.value;
+        }
+
+        V instance = DatabaseObjectFactory.newInstance(this.factory, this.type);
+        if (instance == null) {
+            return null;
+        }
+
+        instance.deserialize(new DataBuffer(Unpooled.wrappedBuffer((byte[]) record.value)));
+        return instance;
+    }
+
+    private static final class Record {
+
+        private static final Comparator<Record> NUMERIC_IDENTIFIER_ORDER = Comparator.<Record>comparingDouble(record -> record.numericIdentifier)
+                .thenComparing(record -> record.key, DatabaseQuery::compareCodePoints);
+
+        private Record(@NotNull String key, @NotNull String identifier, @NotNull Object value) {
+            this(key, identifier, DatabaseQuery.numericValue(identifier), value);
+        }
+
+        private Record(@NotNull String key, @NotNull String identifier, double numericIdentifier, @NotNull Object value) {
+            this.key = key;
+            this.identifier = identifier;
+            this.numericIdentifier = numericIdentifier;
+            this.value = value;
+        }
+
+        private final String key;
+        private final String identifier;
+        private final double numericIdentifier;
+        private final Object value;
+
+        @NotNull
+        private Record withValue(@NotNull Object value) {
+            return new Record(this.key, this.identifier, this.numericIdentifier, value);
+        }
+    }
+}
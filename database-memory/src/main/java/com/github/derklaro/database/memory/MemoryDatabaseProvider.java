@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.memory;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.DatabaseProvider;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A database provider keeping all databases in the memory of the current process. Nothing blocks, so all
+ * operations run on the calling thread and return already completed futures.
+ */
+public class MemoryDatabaseProvider implements DatabaseProvider {
+
+    private final Map<String, Database<? extends DatabaseObject>> databases = new ConcurrentHashMap<>();
+
+    public MemoryDatabaseProvider() {
+        this(StorageMode.SERIALIZED);
+    }
+
+    public MemoryDatabaseProvider(@NotNull StorageMode storageMode) {
+        this(storageMode, PooledByteBufAllocator.DEFAULT);
+    }
+
+    public MemoryDatabaseProvider(@NotNull StorageMode storageMode, @NotNull ByteBufAllocator allocator) {
+        this.storageMode = storageMode;
+        this.allocator = allocator;
+    }
+
+    private final StorageMode storageMode;
+
+    private final ByteBufAllocator allocator;
+
+    private volatile boolean connected = true;
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> isConnected() {
+        return CompletableFuture.completedFuture(this.connected);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> closeConnection() {
+        return this.supply(() -> {
+            this.connected = false;
+            for (Database<? extends DatabaseObject> database : this.databases.values()) {
+                database.clear();
+            }
+
+            this.databases.clear();
+            return true;
+        });
+    }
+
+    @Override
+    public @NotNull <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory) {
+        return this.getDatabase(name, type, factory, this.storageMode);
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory, @NotNull StorageMode storageMode) {
+        return (Database<V>) this.databases.computeIfAbsent(name, databaseName -> storageMode == StorageMode.OFF_HEAP
+                ? new OffHeapDatabase<>(this, databaseName, type, factory)
+                : new MemoryDatabase<>(this, databaseName, type, factory, storageMode));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> existsDatabase(@NotNull String name) {
+        return CompletableFuture.completedFuture(this.databases.containsKey(name));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> deleteDatabase(@NotNull String name) {
+        return this.supply(() -> {
+            Database<? extends DatabaseObject> database = this.databases.remove(name);
+            if (database == null) {
+                return false;
+            }
+
+            database.clear();
+            return true;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getDatabaseNames() {
+        return CompletableFuture.completedFuture(new ArrayList<>(this.databases.keySet()));
+    }
+
+    @NotNull
+    ByteBufAllocator getAllocator() {
+        return this.allocator;
+    }
+
+    @NotNull
+    final <T> CompletableFuture<T> supply(@NotNull Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(supplier.get());
+        } catch (final RuntimeException exception) {
+            future.completeExceptionally(exception);
+        }
+
+        return future;
+    }
+}
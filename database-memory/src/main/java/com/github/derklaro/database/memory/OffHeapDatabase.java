@@ -0,0 +1,758 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.memory;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.objects.DatabaseObjectFactory;
+import com.github.derklaro.database.api.objects.DefaultDatabaseEntry;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import com.github.derklaro.database.api.util.KeyHashing;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A database keeping the key, identifier and serialized value of every entry in one buffer allocated from the
+ * direct memory of the allocator of the provider. The heap only holds an open addressing table of the key hashes
+ * and the buffer handles, a replaced or removed buffer is freed once the last reader released it.
+ * <p>
+ * There are no secondary indexes, so all operations by identifier scan the table. Iterators, spliterators and
+ * streams only copy the key hashes when they are created and decode the entries in small chunks while they are
+ * consumed, they reflect entries which were removed or replaced in the meantime but not ones added later.
+ */
+public class OffHeapDatabase<V extends DatabaseObject> implements Database<V> {
+
+    private static final long EMPTY = 0;
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.7F;
+    private static final int CURSOR_CHUNK_SIZE = 256;
+
+    OffHeapDatabase(@NotNull MemoryDatabaseProvider provider, @NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory) {
+        this.provider = provider;
+        this.name = name;
+        this.type = type;
+        this.factory = factory;
+    }
+
+    private final MemoryDatabaseProvider provider;
+    private final String name;
+    private final Class<V> type;
+    private final Supplier<V> factory;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] hashes = new long[MINIMUM_CAPACITY];
+    private ByteBuf[] records = new ByteBuf[MINIMUM_CAPACITY];
+    private int size;
+
+    @Override
+    public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value) {
+        return this.provider.supply(() -> {
+            ByteBuf record = this.encode(key, identifier, value);
+            this.lock.writeLock().lock();
+            try {
+                this.put(key, record);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries) {
+        return this.provider.supply(() -> {
+            List<ByteBuf> records = new ArrayList<>(entries.size());
+            try {
+                for (Map.Entry<String, Map.Entry<String, V>> entry : entries.entrySet()) {
+                    records.add(this.encode(entry.getKey(), entry.getValue().getKey(), entry.getValue().getValue()));
+                }
+            } catch (final RuntimeException exception) {
+                records.forEach(ByteBuf::release);
+                throw exception;
+            }
+
+            this.lock.writeLock().lock();
+            try {
+                int i = 0;
+                for (String key : entries.keySet()) {
+                    this.put(key, records.get(i++));
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier) {
+        return this.provider.supply(() -> {
+            ByteBuf record;
+            this.lock.readLock().lock();
+            try {
+                int slot = this.find(key);
+                record = slot != -1 ? this.records[slot] : identifier == null ? null : this.findByIdentifier(identifier);
+                if (record != null) {
+                    record.retain();
+                }
+            } finally {
+                this.lock.readLock().unlock();
+            }
+
+            if (record == null) {
+                return Optional.empty();
+            }
+
+            try {
+                return Optional.ofNullable(this.decode(record));
+            } finally {
+                record.release();
+            }
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
+        return this.provider.supply(() -> {
+            this.lock.writeLock().lock();
+            try {
+                int slot = this.find(key);
+                if (slot != -1) {
+                    ByteBuf previous = this.records[slot];
+                    int valueOffset = valueOffset(previous);
+                    this.records[slot] = this.newRecord(key, identifier, previous, valueOffset, previous.writerIndex() - valueOffset);
+                    previous.release();
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
+        return this.provider.supply(() -> {
+            this.lock.writeLock().lock();
+            try {
+                int slot = this.find(key);
+                if (slot != -1) {
+                    this.removeSlot(slot);
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        return this.provider.supply(() -> {
+            this.lock.writeLock().lock();
+            try {
+                for (String key : keys) {
+                    int slot = this.find(key);
+                    if (slot != -1) {
+                        this.removeSlot(slot);
+                    }
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
+        return this.provider.supply(() -> {
+            byte[] identifierBytes = identifier.getBytes(StandardCharsets.UTF_8);
+            this.lock.writeLock().lock();
+            try {
+                for (int slot = 0; slot < this.records.length; slot++) {
+                    // removing shifts the following entries back, so the same slot has to be checked again
+                    while (this.records[slot] != null && identifierEquals(this.records[slot], identifierBytes)) {
+                        this.removeSlot(slot);
+                    }
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<V>> sortByIdentifier(int limit) {
+        return this.provider.supply(() -> {
+            Comparator<Candidate> order = Comparator.<Candidate>comparingDouble(candidate -> candidate.numericIdentifier)
+                    .thenComparing(candidate -> candidate.key, DatabaseQuery::compareCodePoints);
+            List<Candidate> candidates = this.select(record -> true, order, limit);
+
+            Collection<V> results = new ArrayList<>(candidates.size());
+            for (Candidate candidate : candidates) {
+                try {
+                    V value = this.decode(candidate.record);
+                    if (value != null) {
+                        results.add(value);
+                    }
+                } finally {
+                    candidate.record.release();
+                }
+            }
+
+            return results;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getKeys() {
+        return this.provider.supply(() -> {
+            this.lock.readLock().lock();
+            try {
+                Collection<String> keys = new ArrayList<>(this.size);
+                for (ByteBuf record : this.records) {
+                    if (record != null) {
+                        keys.add(key(record));
+                    }
+                }
+
+                return keys;
+            } finally {
+                this.lock.readLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries() {
+        return this.provider.supply(() -> this.collectEntries(record -> true));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries(@NotNull Predicate<String> identifierFilter) {
+        return this.provider.supply(() -> this.collectEntries(record -> identifierFilter.test(identifier(record))));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<V>> entryFilter) {
+        return this.getEntries().thenApply(entries -> entries.stream().filter(entryFilter).collect(Collectors.toList()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query) {
+        return this.provider.supply(() -> {
+            int limit = query.getLimit() < 0 ? Integer.MAX_VALUE : query.getLimit();
+            List<Candidate> candidates;
+            if (query.getKeys() != null) {
+                candidates = new ArrayList<>();
+                this.lock.readLock().lock();
+                try {
+                    for (String key : new LinkedHashSet<>(query.getKeys())) {
+                        int slot = this.find(key);
+                        if (slot != -1 && query.matches(key, identifier(this.records[slot]))) {
+                            candidates.add(new Candidate(this.records[slot].retain()));
+                        }
+                    }
+                } finally {
+                    this.lock.readLock().unlock();
+                }
+
+                if (query.getOrder() != null) {
+                    candidates.sort(candidateOrder(query.getOrder()));
+                }
+
+                while (candidates.size() > limit) {
+                    candidates.remove(candidates.size() - 1).record.release();
+                }
+            } else {
+                Comparator<Candidate> order = query.getOrder() == null ? null : candidateOrder(query.getOrder());
+                candidates = this.select(record -> query.matches(key(record), identifier(record)), order, limit);
+            }
+
+            List<DatabaseEntry<V>> entries = new ArrayList<>(candidates.size());
+            for (Candidate candidate : candidates) {
+                entries.add(this.toEntry(candidate.record));
+                candidate.record.release();
+            }
+
+            return entries;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit) {
+        return DatabasePage.query(this, afterKey, limit);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
+        return this.provider.supply(() -> StreamSupport.stream(this.cursor(this::toEntry), false));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> clear() {
+        return this.provider.supply(() -> {
+            this.lock.writeLock().lock();
+            try {
+                for (ByteBuf record : this.records) {
+                    if (record != null) {
+                        record.release();
+                    }
+                }
+
+                this.hashes = new long[MINIMUM_CAPACITY];
+                this.records = new ByteBuf[MINIMUM_CAPACITY];
+                this.size = 0;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> getSize() {
+        return this.provider.supply(() -> {
+            this.lock.readLock().lock();
+            try {
+                return (long) this.size;
+            } finally {
+                this.lock.readLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Iterator<V>> iterator() {
+        return this.provider.supply(() -> Spliterators.iterator(this.cursor(this::decode)));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Spliterator<V>> spliterator() {
+        return this.provider.supply(() -> this.cursor(this::decode));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<V> consumer) {
+        return this.provider.supply(() -> {
+            this.cursor(this::decode).forEachRemaining(consumer);
+            return null;
+        });
+    }
+
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+
+    private int find(@NotNull String key) {
+        long hash = KeyHashing.hash(key);
+        byte[] keyBytes = null;
+
+        int mask = this.hashes.length - 1;
+        for (int slot = KeyHashing.idealSlot(hash, mask); this.hashes[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (this.hashes[slot] == hash) {
+                if (keyBytes == null) {
+                    keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                }
+
+                if (keyEquals(this.records[slot], keyBytes)) {
+                    return slot;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Nullable
+    private ByteBuf findByIdentifier(@NotNull String identifier) {
+        byte[] identifierBytes = identifier.getBytes(StandardCharsets.UTF_8);
+        for (ByteBuf record : this.records) {
+            if (record != null && identifierEquals(record, identifierBytes)) {
+                return record;
+            }
+        }
+
+        return null;
+    }
+
+    private void put(@NotNull String key, @NotNull ByteBuf record) {
+        int slot = this.find(key);
+        if (slot != -1) {
+            ByteBuf previous = this.records[slot];
+            this.records[slot] = record;
+            previous.release();
+            return;
+        }
+
+        if (this.size + 1 > this.hashes.length * LOAD_FACTOR) {
+            this.resize(this.hashes.length << 1);
+        }
+
+        this.insertSlot(KeyHashing.hash(key), record);
+        this.size++;
+    }
+
+    private void insertSlot(long hash, @NotNull ByteBuf record) {
+        int mask = this.hashes.length - 1;
+        int slot = KeyHashing.idealSlot(hash, mask);
+        while (this.hashes[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        this.hashes[slot] = hash;
+        this.records[slot] = record;
+    }
+
+    private void removeSlot(int slot) {
+        this.records[slot].release();
+
+        int mask = this.hashes.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; this.hashes[next] != EMPTY; next = (next + 1) & mask) {
+            if (KeyHashing.canShiftInto(this.hashes[next], next, hole, mask)) {
+                this.hashes[hole] = this.hashes[next];
+                this.records[hole] = this.records[next];
+                hole = next;
+            }
+        }
+
+        this.hashes[hole] = EMPTY;
+        this.records[hole] = null;
+        this.size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldHashes = this.hashes;
+        ByteBuf[] oldRecords = this.records;
+
+        this.hashes = new long[capacity];
+        this.records = new ByteBuf[capacity];
+        for (int slot = 0; slot < oldHashes.length; slot++) {
+            if (oldHashes[slot] != EMPTY) {
+                this.insertSlot(oldHashes[slot], oldRecords[slot]);
+            }
+        }
+    }
+
+    @NotNull
+    private List<Candidate> select(@NotNull Predicate<ByteBuf> filter, @Nullable Comparator<Candidate> order, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // keeps the first entries in the given order in a bounded heap whose head is the last selected entry
+        PriorityQueue<Candidate> selected = new PriorityQueue<>(order == null ? (left, right) -> 0 : order.reversed());
+        this.lock.readLock().lock();
+        try {
+            for (ByteBuf record : this.records) {
+                if (record == null || !filter.test(record)) {
+                    continue;
+                }
+
+                if (selected.size() < limit) {
+                    selected.add(new Candidate(record.retain()));
+                } else if (order == null) {
+                    break;
+                } else {
+                    Candidate candidate = new Candidate(record);
+                    if (order.compare(candidate, selected.peek()) < 0) {
+                        selected.poll().record.release();
+                        selected.add(new Candidate(record.retain()));
+                    }
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        List<Candidate> result = new ArrayList<>(selected);
+        if (order != null) {
+            result.sort(order);
+        }
+
+        return result;
+    }
+
+    @NotNull
+    private Collection<DatabaseEntry<V>> collectEntries(@NotNull Predicate<ByteBuf> filter) {
+        this.lock.readLock().lock();
+        try {
+            Collection<DatabaseEntry<V>> entries = new ArrayList<>();
+            for (ByteBuf record : this.records) {
+                if (record != null && filter.test(record)) {
+                    entries.add(this.toEntry(record));
+                }
+            }
+
+            return entries;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @NotNull
+    private <T> Cursor<T> cursor(@NotNull Function<ByteBuf, T> mapper) {
+        long[] hashes;
+        this.lock.readLock().lock();
+        try {
+            hashes = new long[this.size];
+            int i = 0;
+            for (long hash : this.hashes) {
+                if (hash != EMPTY) {
+                    hashes[i++] = hash;
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        // keys with the same hash are all visited by the first occurrence of the hash, so the duplicates are dropped
+        Arrays.sort(hashes);
+        int distinct = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+
+        return new Cursor<>(Arrays.copyOf(hashes, distinct), mapper);
+    }
+
+    @NotNull
+    private DatabaseEntry<V> toEntry(@NotNull ByteBuf record) {
+        int valueOffset = valueOffset(record);
+        // copy the value to the heap, the entry may outlive the off-heap record and is only decoded on request
+        byte[] data = ByteBufUtil.getBytes(record, valueOffset, record.writerIndex() - valueOffset);
+        return DefaultDatabaseEntry.lazy(key(record), identifier(record), () -> this.decode(Unpooled.wrappedBuffer(data), 0), this);
+    }
+
+    @NotNull
+    private ByteBuf encode(@NotNull String key, @NotNull String identifier, @NotNull V value) {
+        int sizeHint = value.estimateSize();
+        ByteBuf buffer = sizeHint > 0
+                ? this.provider.getAllocator().heapBuffer(sizeHint)
+                : this.provider.getAllocator().heapBuffer();
+        try {
+            value.serialize(new DataBuffer(buffer));
+            return this.newRecord(key, identifier, buffer, buffer.readerIndex(), buffer.readableBytes());
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @NotNull
+    private ByteBuf newRecord(@NotNull String key, @NotNull String identifier, @NotNull ByteBuf value, int valueIndex, int valueLength) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] identifierBytes = identifier.getBytes(StandardCharsets.UTF_8);
+
+        // layout: key length, key, identifier length, identifier, value until the end of the buffer
+        int length = 2 * Integer.BYTES + keyBytes.length + identifierBytes.length + valueLength;
+        ByteBuf record = this.provider.getAllocator().directBuffer(length, length);
+        record.writeInt(keyBytes.length);
+        record.writeBytes(keyBytes);
+        record.writeInt(identifierBytes.length);
+        record.writeBytes(identifierBytes);
+        record.writeBytes(value, valueIndex, valueLength);
+        return record;
+    }
+
+    @Nullable
+    private V decode(@NotNull ByteBuf record) {
+        return this.decode(record, valueOffset(record));
+    }
+
+    @Nullable
+    private V decode(@NotNull ByteBuf buffer, int valueOffset) {
+        V instance = DatabaseObjectFactory.newInstance(this.factory, this.type);
+        if (instance == null) {
+            return null;
+        }
+
+        // decode from a duplicate, the record may be read by other threads at the same time
+        instance.deserialize(new DataBuffer(buffer.duplicate().readerIndex(valueOffset)));
+        return instance;
+    }
+
+    @NotNull
+    private static Comparator<Candidate> candidateOrder(@NotNull DatabaseQuery.Order order) {
+        return order.comparator(candidate -> candidate.key, candidate -> candidate.identifier);
+    }
+
+    @NotNull
+    private static String key(@NotNull ByteBuf record) {
+        return record.toString(Integer.BYTES, record.getInt(0), StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    private static String identifier(@NotNull ByteBuf record) {
+        int identifierIndex = Integer.BYTES + record.getInt(0);
+        return record.toString(identifierIndex + Integer.BYTES, record.getInt(identifierIndex), StandardCharsets.UTF_8);
+    }
+
+    private static int valueOffset(@NotNull ByteBuf record) {
+        int identifierIndex = Integer.BYTES + record.getInt(0);
+        return identifierIndex + Integer.BYTES + record.getInt(identifierIndex);
+    }
+
+    private static boolean keyEquals(@NotNull ByteBuf record, @NotNull byte[] key) {
+        return bytesEqual(record, 0, key);
+    }
+
+    private static boolean identifierEquals(@NotNull ByteBuf record, @NotNull byte[] identifier) {
+        return bytesEqual(record, Integer.BYTES + record.getInt(0), identifier);
+    }
+
+    private static boolean bytesEqual(@NotNull ByteBuf record, int lengthIndex, @NotNull byte[] bytes) {
+        if (record.getInt(lengthIndex) != bytes.length) {
+            return false;
+        }
+
+        int start = lengthIndex + Integer.BYTES;
+        for (int i = 0; i < bytes.length; i++) {
+            if (record.getByte(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * A retained record with its decoded key and identifier, the value of the record is never decoded.
+     */
+    private static final class Candidate {
+
+        private Candidate(@NotNull ByteBuf record) {
+            this.record = record;
+            this.key = key(record);
+            this.identifier = identifier(record);
+            this.numericIdentifier = DatabaseQuery.numericValue(this.identifier);
+        }
+
+        private final ByteBuf record;
+        private final String key;
+        private final String identifier;
+        private final double numericIdentifier;
+    }
+
+    /**
+     * Walks over a copy of the key hashes and maps the records of the next chunk of hashes under the read lock, so
+     * that no record has to be retained between two chunks.
+     */
+    private final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private Cursor(@NotNull long[] hashes, @NotNull Function<ByteBuf, T> mapper) {
+            super(hashes.length, Spliterator.NONNULL);
+            this.hashes = hashes;
+            this.mapper = mapper;
+        }
+
+        private final long[] hashes;
+        private final Function<ByteBuf, T> mapper;
+        private final Deque<T> chunk = new ArrayDeque<>();
+
+        private int index;
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (this.chunk.isEmpty() && this.index < this.hashes.length) {
+                this.nextChunk();
+            }
+
+            T value = this.chunk.poll();
+            if (value == null) {
+                return false;
+            }
+
+            action.accept(value);
+            return true;
+        }
+
+        private void nextChunk() {
+            int end = Math.min(this.hashes.length, this.index + CURSOR_CHUNK_SIZE);
+            OffHeapDatabase.this.lock.readLock().lock();
+            try {
+                long[] table = OffHeapDatabase.this.hashes;
+                int mask = table.length - 1;
+                for (; this.index < end; this.index++) {
+                    long hash = this.hashes[this.index];
+                    for (int slot = KeyHashing.idealSlot(hash, mask); table[slot] != EMPTY; slot = (slot + 1) & mask) {
+                        if (table[slot] == hash) {
+                            T value = this.mapper.apply(OffHeapDatabase.this.records[slot]);
+                            if (value != null) {
+                                this.chunk.add(value);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                OffHeapDatabase.this.lock.readLock().unlock();
+            }
+        }
+    }
+}
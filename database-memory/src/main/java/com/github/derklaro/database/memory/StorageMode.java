@@ -0,0 +1,43 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.memory;
+
+public enum StorageMode {
+
+    /**
+     * Values are serialized on insert and deserialized on every read, the database behaves like a remote one and
+     * changes to a value are only visible after inserting it again.
+     */
+    SERIALIZED,
+    /**
+     * Values are stored as they are inserted and every read returns the same instance. This is the fastest mode but
+     * changes to a value are visible to every holder of it without re-inserting.
+     */
+    LIVE_OBJECTS,
+    /**
+     * Values are serialized together with their key and identifier into direct buffers of the allocator of the
+     * provider, only the hash index of the entries stays on the heap. Lookups by identifier scan all entries.
+     */
+    OFF_HEAP
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.memory.connection;
+
+import com.github.derklaro.database.api.DatabaseProvider;
+import com.github.derklaro.database.api.connection.ConnectionConfiguration;
+import com.github.derklaro.database.api.connection.ConnectionProvider;
+import com.github.derklaro.database.memory.MemoryDatabaseProvider;
+import com.github.derklaro.database.memory.StorageMode;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Connects to databases held in the memory of the current process. Connections to the same target database share
+ * one provider and therefore the same data until the provider is closed.
+ */
+public class MemoryConnectionProvider implements ConnectionProvider {
+
+    private final Map<String, DatabaseProvider> providers = new ConcurrentHashMap<>();
+
+    public MemoryConnectionProvider() {
+        this(StorageMode.SERIALIZED);
+    }
+
+    public MemoryConnectionProvider(@NotNull StorageMode storageMode) {
+        this(storageMode, PooledByteBufAllocator.DEFAULT);
+    }
+
+    public MemoryConnectionProvider(@NotNull StorageMode storageMode, @NotNull ByteBufAllocator allocator) {
+        this.storageMode = storageMode;
+        this.allocator = allocator;
+    }
+
+    private final StorageMode storageMode;
+
+    private final ByteBufAllocator allocator;
+
+    @Override
+    public @NotNull CompletableFuture<Optional<DatabaseProvider>> connect(@NotNull ConnectionConfiguration connectionConfiguration) {
+        if (!connectionConfiguration.isLoaded()) {
+            throw new RuntimeException("Can only connect to a database using a loaded connection configuration");
+        }
+
+        DatabaseProvider provider = this.providers.compute(connectionConfiguration.getTargetDatabase(), (name, existing) -> {
+            if (existing != null && existing.isConnected().getNow(false)) {
+                return existing;
+            }
+
+            return new MemoryDatabaseProvider(this.storageMode, this.allocator);
+        });
+        return CompletableFuture.completedFuture(Optional.of(provider));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> closeAllConnections() {
+        Collection<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (DatabaseProvider provider : this.providers.values()) {
+            futures.add(provider.closeConnection());
+        }
+
+        this.providers.clear();
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.memory;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.query.DatabasePage;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoryDatabaseTest {
+
+    // U+E000 is greater than the surrogates of U+1F600 as UTF-16 unit, but smaller as code point
+    private static final String PRIVATE_USE = "\uE000";
+    private static final String EMOJI = new String(Character.toChars(0x1F600));
+    private static final List<String> CODE_POINT_ORDER = Arrays.asList("a", "b", PRIVATE_USE, EMOJI);
+
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    void pagesFollowTheCodePointOrder(@NotNull StorageMode storageMode) {
+        Database<TestObject> database = open(storageMode);
+        for (String key : Arrays.asList(EMOJI, "b", PRIVATE_USE, "a")) {
+            database.insert(key, "1", new TestObject(key)).join();
+        }
+
+        List<String> keys = new ArrayList<>();
+        String afterKey = null;
+        do {
+            DatabasePage<TestObject> page = database.page(afterKey, 1).join();
+            page.getEntries().forEach(entry -> keys.add(entry.getKey()));
+            afterKey = page.getNextKey();
+        } while (afterKey != null);
+
+        assertEquals(CODE_POINT_ORDER, keys);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    void identifierTiesAreOrderedByCodePoint(@NotNull StorageMode storageMode) {
+        Database<TestObject> database = open(storageMode);
+        for (String key : Arrays.asList(EMOJI, "b", PRIVATE_USE, "a")) {
+            database.insert(key, "1", new TestObject(key)).join();
+        }
+
+        assertEquals(CODE_POINT_ORDER, database.sortByIdentifier(10).join().stream().map(object -> object.value).collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    void invalidPageLimitFailsTheFuture(@NotNull StorageMode storageMode) {
+        Database<TestObject> database = open(storageMode);
+        CompletableFuture<DatabasePage<TestObject>> page = database.page(null, 0);
+
+        assertTrue(page.isCompletedExceptionally());
+        assertThrows(CompletionException.class, page::join);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    void largestPageLimitReadsEveryEntry(@NotNull StorageMode storageMode) {
+        Database<TestObject> database = open(storageMode);
+        for (String key : CODE_POINT_ORDER) {
+            database.insert(key, "1", new TestObject(key)).join();
+        }
+
+        DatabasePage<TestObject> page = database.page(null, Integer.MAX_VALUE).join();
+        assertEquals(CODE_POINT_ORDER.size(), page.getEntries().size());
+        assertFalse(page.hasNext());
+    }
+
+    @NotNull
+    private static Database<TestObject> open(@NotNull StorageMode storageMode) {
+        return new MemoryDatabaseProvider(storageMode).getDatabase("test", TestObject.class, TestObject::new);
+    }
+
+    static final class TestObject implements DatabaseObject {
+
+        TestObject() {
+        }
+
+        TestObject(@NotNull String value) {
+            this.value = value;
+        }
+
+        String value;
+
+        @Override
+        public void serialize(@NotNull DataBuffer buffer) {
+            buffer.putString(this.value);
+        }
+
+        @Override
+        public void deserialize(@NotNull DataBuffer buffer) {
+            this.value = buffer.readString();
+        }
+    }
+}
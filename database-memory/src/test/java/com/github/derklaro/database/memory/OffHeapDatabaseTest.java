@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.memory;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.util.KeyHashing;
+import com.github.derklaro.database.memory.MemoryDatabaseTest.TestObject;
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapDatabaseTest {
+
+    // the initial capacity of the table, 11 entries fit in before it grows
+    private static final int INITIAL_MASK = 15;
+
+    @Test
+    void collidingKeysSurviveRemovals() {
+        // a cluster starting in the last slot wraps around to the start of the table
+        List<String> keys = collidingKeys(INITIAL_MASK, 5);
+        for (List<String> removed : Arrays.asList(keys.subList(0, 1), keys.subList(2, 3), keys.subList(4, 5), keys.subList(0, 5))) {
+            Database<TestObject> database = open(new TrackingAllocator());
+            keys.forEach(key -> database.insert(key, "1", new TestObject(key)).join());
+            removed.forEach(key -> database.remove(key).join());
+
+            for (String key : keys) {
+                Optional<TestObject> value = database.get(key, null).join();
+                assertEquals(!removed.contains(key), value.isPresent(), key);
+                value.ifPresent(object -> assertEquals(key, object.value));
+            }
+
+            assertEquals(keys.size() - removed.size(), (long) database.getSize().join());
+        }
+    }
+
+    @Test
+    void entriesSurviveResizing() {
+        Database<TestObject> database = open(new TrackingAllocator());
+        for (int i = 0; i < 1000; i++) {
+            database.insert("key-" + i, String.valueOf(i % 10), new TestObject("value-" + i)).join();
+        }
+
+        for (int i = 0; i < 1000; i += 2) {
+            database.remove("key-" + i).join();
+        }
+
+        assertEquals(500, (long) database.getSize().join());
+        for (int i = 0; i < 1000; i++) {
+            Optional<TestObject> value = database.get("key-" + i, null).join();
+            assertEquals(i % 2 == 1, value.isPresent());
+            value.ifPresent(object -> assertTrue(object.value.startsWith("value-")));
+        }
+    }
+
+    @Test
+    void replacedAndRemovedRecordsAreReleased() {
+        TrackingAllocator allocator = new TrackingAllocator();
+        Database<TestObject> database = open(allocator);
+
+        database.insert("a", "1", new TestObject("first")).join();
+        ByteBuf first = allocator.lastDirect();
+        database.insert("a", "1", new TestObject("second")).join();
+        assertEquals(0, first.refCnt());
+
+        database.insert("b", "2", new TestObject("b")).join();
+        ByteBuf removed = allocator.lastDirect();
+        database.remove("b").join();
+        assertEquals(0, removed.refCnt());
+
+        for (int i = 0; i < 100; i++) {
+            database.insert("key-" + i, "3", new TestObject("value")).join();
+        }
+
+        database.removeAll("3").join();
+        database.getEntries().join().forEach(DatabaseEntry::getEntry);
+        database.sortByIdentifier(10).join();
+        database.clear().join();
+
+        assertFalse(allocator.direct.isEmpty());
+        for (ByteBuf buffer : allocator.direct) {
+            assertEquals(0, buffer.refCnt());
+        }
+    }
+
+    @NotNull
+    private static Database<TestObject> open(@NotNull TrackingAllocator allocator) {
+        return new MemoryDatabaseProvider(StorageMode.OFF_HEAP, allocator).getDatabase("test", TestObject.class, TestObject::new);
+    }
+
+    @NotNull
+    private static List<String> collidingKeys(int slot, int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; keys.size() < count; i++) {
+            String key = "key-" + i;
+            if (KeyHashing.idealSlot(KeyHashing.hash(key), INITIAL_MASK) == slot) {
+                keys.add(key);
+            }
+        }
+
+        return keys;
+    }
+
+    private static final class TrackingAllocator extends AbstractByteBufAllocator {
+
+        private final List<ByteBuf> direct = new ArrayList<>();
+
+        @NotNull
+        ByteBuf lastDirect() {
+            return this.direct.get(this.direct.size() - 1);
+        }
+
+        @Override
+        protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+            return UnpooledByteBufAllocator.DEFAULT.heapBuffer(initialCapacity, maxCapacity);
+        }
+
+        @Override
+        protected synchronized ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+            ByteBuf buffer = UnpooledByteBufAllocator.DEFAULT.directBuffer(initialCapacity, maxCapacity);
+            this.direct.add(buffer);
+            return buffer;
+        }
+
+        @Override
+        public boolean isDirectBufferPooled() {
+            return false;
+        }
+    }
+}
@@ -23,151 +23,194 @@
  */
 package com.github.derklaro.database.mysql;
 
-import com.github.derklaro.database.mysql.entry.DefaultDatabaseEntry;
+import com.github.derklaro.database.mysql.dialect.SQLDialect;
 import com.github.derklaro.database.api.Database;
-import com.github.derklaro.database.api.buffer.ByteBuffer;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.api.codec.ValueCodec;
 import com.github.derklaro.database.api.objects.DatabaseEntry;
 import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.objects.DatabaseObjectFactory;
+import com.github.derklaro.database.api.objects.DefaultDatabaseEntry;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import com.github.derklaro.database.mysql.util.SQLExceptionFunction;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class MySQLDatabase<V extends DatabaseObject> implements Database<V> {
 
-    MySQLDatabase(@NotNull MySQLDatabaseProvider provider, @NotNull String name, @NotNull Class<V> type) {
+    private static final int MINIMUM_READ_SIZE = 1024;
+    private static final int ITERATOR_PAGE_SIZE = 1000;
+
+    MySQLDatabase(@NotNull MySQLDatabaseProvider provider, @NotNull String name, @NotNull Class<V> type,
+                  @NotNull Supplier<V> factory, @NotNull ValueCodec codec) {
         this.provider = provider;
         this.name = name;
         this.type = type;
-
-        provider.executeUpdate("CREATE TABLE IF NOT EXISTS `" + name + "` (`key` TEXT, `identifier` TEXT, `data` LONGBLOB);");
+        this.factory = factory;
+        this.codec = codec;
+        this.dialect = provider.getDialect();
+        this.statements = new MySQLStatements(this.dialect, name);
     }
 
     private final MySQLDatabaseProvider provider;
     private final String name;
     private final Class<V> type;
+    private final Supplier<V> factory;
+    private final ValueCodec codec;
+    private final SQLDialect dialect;
+    private final MySQLStatements statements;
+
+    /**
+     * Creates the table if it does not exist yet and migrates it if it still uses the legacy layout. The migration
+     * copies the table and blocks its writers until it is done, a failed migration fails opening the database.
+     */
+    void createTable() {
+        for (String statement : this.statements.createTable) {
+            if (this.provider.executeUpdate(statement) == -1) {
+                throw new IllegalStateException("Unable to create table " + this.name);
+            }
+        }
+
+        String selectColumnType = this.dialect.selectColumnType();
+        if (selectColumnType == null || !this.isLegacyLayout(selectColumnType)) {
+            return;
+        }
+
+        try {
+            this.provider.withConnection(connection -> {
+                this.dialect.migrateLegacyTable(connection, this.name);
+                return null;
+            });
+        } catch (final SQLException exception) {
+            // the legacy layout has no primary key, writing to it would keep adding rows instead of replacing them
+            throw new IllegalStateException("Unable to migrate table " + this.name + " to the indexed layout, "
+                    + "keys longer than 255 characters have to be removed before the migration", exception);
+        }
+    }
+
+    @NotNull
+    ValueCodec getCodec() {
+        return this.codec;
+    }
 
     @Override
     public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value) {
-        return CompletableFuture.supplyAsync(() -> {
-            ByteBuffer byteBuffer = null;
-            try {
-                byteBuffer = new ByteBuffer(Unpooled.buffer());
-                value.serialize(byteBuffer);
-
-                byte[] data = byteBuffer.toByteArray();
-                if (this.provider.executeUpdate("INSERT INTO " + this.name + " (`key`, `identifier`, `data`) VALUES (?, ?, ?)", key, identifier, data, 3) != -1) {
-                    return null;
-                }
+        return this.provider.supplyAsync(() -> {
+            this.checkUpdate(this.provider.executeUpdate(this.statements.upsert, key, identifier, this.encode(value)));
+            return null;
+        });
+    }
 
-                this.provider.executeUpdate("UPDATE " + this.name + " SET `data` = ? WHERE `key` = ? OR `identifier` = ?", key, identifier, data, 1);
-            } finally {
-                if (byteBuffer != null) {
-                    byteBuffer.release();
-                }
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries) {
+        return this.provider.supplyAsync(() -> {
+            Collection<Object[]> batch = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Map.Entry<String, V>> entry : entries.entrySet()) {
+                batch.add(new Object[]{entry.getKey(), entry.getValue().getKey(), this.encode(entry.getValue().getValue())});
             }
 
+            this.checkUpdate(this.provider.executeBatch(this.statements.upsert, batch));
             return null;
         });
     }
 
     @Override
     public @NotNull CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier) {
-        return CompletableFuture.supplyAsync(() -> this.provider.executeQuery(resultSet -> {
-            if (resultSet.next()) {
-                byte[] data = resultSet.getBytes("data");
-                if (data == null) {
-                    return Optional.empty();
-                }
+        String query = identifier == null ? this.statements.selectByKey : this.statements.selectByKeyOrIdentifier;
+        Object[] parameters = identifier == null ? new Object[]{key} : new Object[]{key, identifier};
 
-                return Optional.ofNullable(this.decode(data));
+        return this.provider.supplyAsync(() -> this.provider.executeQuery(resultSet -> {
+            if (resultSet.next()) {
+                return Optional.ofNullable(this.withRowBuffer(buffer -> this.decode(resultSet, buffer)));
             }
 
             return Optional.empty();
-        }, "SELECT data FROM " + this.name + " WHERE key = " + key + (identifier == null ? "" : " OR identifier = " + identifier)));
+        }, query, parameters));
     }
 
     @Override
     public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
-        return CompletableFuture.supplyAsync(() -> {
-            this.provider.executeUpdate("UPDATE " + this.name + " SET `identifier` = `" + identifier + "` WHERE `key` = `" + key + "`");
+        return this.provider.supplyAsync(() -> {
+            this.checkUpdate(this.provider.executeUpdate(this.statements.updateIdentifier, identifier, key));
             return null;
         });
     }
 
     @Override
     public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
-        return CompletableFuture.supplyAsync(() -> {
-            this.provider.executeUpdate("DELETE FROM " + this.name + " WHERE key = `" + key + "`");
+        return this.provider.supplyAsync(() -> {
+            this.checkUpdate(this.provider.executeUpdate(this.statements.deleteByKey, key));
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        return this.provider.supplyAsync(() -> {
+            Collection<Object[]> batch = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                batch.add(new Object[]{key});
+            }
+
+            this.checkUpdate(this.provider.executeBatch(this.statements.deleteByKey, batch));
             return null;
         });
     }
 
     @Override
     public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
-        return CompletableFuture.supplyAsync(() -> {
-            this.provider.executeUpdate("DELETE FROM " + this.name + " WHERE `identifier` = `" + identifier + "`");
+        return this.provider.supplyAsync(() -> {
+            this.checkUpdate(this.provider.executeUpdate(this.statements.deleteByIdentifier, identifier));
             return null;
         });
     }
 
     @Override
     public @NotNull CompletableFuture<Collection<V>> sortByIdentifier(int limit) {
-        return CompletableFuture.supplyAsync(() -> this.provider.executeQuery(resultSet -> {
+        return this.provider.supplyAsync(() -> this.provider.executeQuery(resultSet -> this.withRowBuffer(buffer -> {
             Collection<V> results = new ArrayList<>();
             while (resultSet.next()) {
-                byte[] data = resultSet.getBytes("data");
-                if (data == null) {
-                    continue;
-                }
-
-                V instance = this.decode(data);
+                V instance = this.decode(resultSet, buffer);
                 if (instance != null) {
                     results.add(instance);
                 }
             }
 
             return results;
-        }, "SELECT * FROM " + this.name + " ORDER BY `identifier`+0 LIMIT " + limit));
+        }), this.statements.sortByIdentifier, limit));
     }
 
     @Override
     public @NotNull CompletableFuture<Collection<String>> getKeys() {
-        return CompletableFuture.supplyAsync(() -> this.provider.executeQuery(resultSet -> {
+        return this.provider.supplyAsync(() -> this.provider.executeQuery(resultSet -> {
             Collection<String> result = new ArrayList<>();
             while (resultSet.next()) {
                 result.add(resultSet.getString("key"));
             }
 
             return result;
-        }, "SELECT `key` FROM " + this.name));
+        }, this.statements.selectKeys));
     }
 
     @Override
     public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries() {
-        return CompletableFuture.supplyAsync(() -> this.provider.executeQuery(resultSet -> {
-            Collection<DatabaseEntry<V>> results = new ArrayList<>();
-            while (resultSet.next()) {
-                byte[] data = resultSet.getBytes("data");
-                if (data == null) {
-                    continue;
-                }
-
-                V instance = this.decode(data);
-                if (instance != null) {
-                    results.add(new DefaultDatabaseEntry<>(resultSet.getString("key"), resultSet.getString("identifier"), instance, this));
-                }
-            }
-
-            return results;
-        }, "SELECT * FROM " + this.name));
+        return this.provider.supplyAsync(() -> this.provider.executeQuery(this::readEntries, this.statements.selectEntries));
     }
 
     @Override
@@ -178,7 +221,7 @@ public class MySQLDatabase<V extends DatabaseObject> implements Database<V> {
             }
 
             return result.stream().filter(entry -> identifierFilter.test(entry.getIdentifier())).collect(Collectors.toList());
-        });
+        }, this.provider.getExecutor());
     }
 
     @Override
@@ -189,100 +232,329 @@ public class MySQLDatabase<V extends DatabaseObject> implements Database<V> {
             }
 
             return result.stream().filter(entryFilter).collect(Collectors.toList());
-        });
+        }, this.provider.getExecutor());
     }
 
     @Override
-    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
-        return this.getEntries().handleAsync((result, th) -> {
-            if (result == null) {
-                throw new RuntimeException(th);
-            }
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query) {
+        return this.provider.supplyAsync(() -> {
+            List<Object> parameters = new ArrayList<>();
+            String sql = this.buildQuery(query, parameters);
 
-            return result.stream();
+            return this.provider.executeQuery(this::readEntries, sql, parameters.toArray());
         });
     }
 
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit) {
+        return DatabasePage.query(this, afterKey, limit);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
+        return this.provider.supplyAsync(() -> this.provider.executeStreamingQuery(this::readEntry, this.statements.selectEntries));
+    }
+
     @Override
     public @NotNull CompletableFuture<Void> clear() {
-        return CompletableFuture.supplyAsync(() -> {
-            this.provider.executeUpdate("TRUNCATE TABLE " + this.name);
+        return this.provider.supplyAsync(() -> {
+            this.checkUpdate(this.provider.executeUpdate(this.statements.truncate));
             return null;
         });
     }
 
     @Override
     public @NotNull CompletableFuture<Long> getSize() {
-        return CompletableFuture.supplyAsync(() -> this.provider.executeQuery(resultSet -> {
+        return this.provider.supplyAsync(() -> this.provider.executeQuery(resultSet -> {
             if (resultSet.next()) {
                 return resultSet.getLong(1);
             }
 
             return -1L;
-        }, "SELECT COUNT(`key`) FROM `" + this.name + "`"));
+        }, this.statements.count));
     }
 
+    /**
+     * Iterates over the values in pages ordered by key. Unlike {@link #stream()} no connection is held between two
+     * pages, so a caller may stop iterating at any time without closing anything.
+     */
     @Override
     public @NotNull CompletableFuture<Iterator<V>> iterator() {
-        return this.getEntries().handleAsync((result, th) -> {
-            if (result == null) {
-                throw new RuntimeException(th);
-            }
-
-            return result.stream().map(DatabaseEntry::getEntry).iterator();
+        return this.provider.supplyAsync(() -> {
+            PagedIterator iterator = new PagedIterator();
+            // read the first page here so that the future fails if the table is not readable
+            iterator.hasNext();
+            return iterator;
         });
     }
 
+    /**
+     * Splits the values in pages ordered by key, see {@link #iterator()}.
+     */
     @Override
     public @NotNull CompletableFuture<Spliterator<V>> spliterator() {
-        return this.getEntries().handleAsync((result, th) -> {
-            if (result == null) {
-                throw new RuntimeException(th);
-            }
-
-            return result.stream().map(DatabaseEntry::getEntry).spliterator();
-        });
+        return this.iterator().thenApply(iterator -> Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL));
     }
 
     @Override
     public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<V> consumer) {
-        return this.getEntries().thenAcceptAsync(result -> {
-            for (DatabaseEntry<V> vDatabaseEntry : result) {
-                consumer.accept(vDatabaseEntry.getEntry());
+        return this.streamValues().thenAccept(stream -> {
+            try (Stream<V> values = stream) {
+                values.forEach(consumer);
             }
         });
     }
 
+    @NotNull
+    private CompletableFuture<Stream<V>> streamValues() {
+        return this.provider.supplyAsync(() -> {
+            ByteBuf buffer = this.provider.getAllocator().heapBuffer();
+            return this.provider.executeStreamingQuery(resultSet -> this.decode(resultSet, buffer), buffer::release, this.statements.selectData);
+        });
+    }
+
+    private void checkUpdate(int result) {
+        // the provider already printed the cause, failing the future lets the caller retry or report the write
+        if (result == -1) {
+            throw new IllegalStateException("Unable to write to table " + this.name);
+        }
+    }
+
+    @NotNull
+    private String buildQuery(@NotNull DatabaseQuery query, @NotNull List<Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (query.getIdentifiers() != null) {
+            conditions.add(this.inCondition(this.statements.identifier, query.getIdentifiers(), parameters));
+        }
+
+        if (query.getIdentifierPrefix() != null) {
+            conditions.add(this.statements.identifier + " LIKE ? ESCAPE '!'");
+            parameters.add(query.getIdentifierPrefix().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+        }
+
+        if (query.getIdentifierFrom() != null) {
+            conditions.add(this.statements.identifier + " >= ?");
+            parameters.add(query.getIdentifierFrom());
+        }
+
+        if (query.getIdentifierTo() != null) {
+            conditions.add(this.statements.identifier + " < ?");
+            parameters.add(query.getIdentifierTo());
+        }
+
+        if (query.getKeys() != null) {
+            conditions.add(this.inCondition(this.statements.key, query.getKeys(), parameters));
+        }
+
+        if (query.getKeyAfter() != null) {
+            conditions.add(this.statements.key + " > ?");
+            parameters.add(query.getKeyAfter());
+        }
+
+        StringBuilder sql = new StringBuilder(this.statements.selectEntries);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+
+        if (query.getOrder() != null) {
+            sql.append(" ORDER BY ").append(this.orderClause(query.getOrder()));
+        }
+
+        if (query.getLimit() >= 0) {
+            parameters.add(query.getLimit());
+            return this.dialect.limit(sql.toString(), "?");
+        }
+
+        return sql.toString();
+    }
+
+    @NotNull
+    private String inCondition(@NotNull String column, @NotNull Collection<String> values, @NotNull List<Object> parameters) {
+        if (values.isEmpty()) {
+            return "1 = 0";
+        }
+
+        parameters.addAll(values);
+        return column + " IN (" + String.join(", ", Collections.nCopies(values.size(), "?")) + ")";
+    }
+
+    @NotNull
+    private String orderClause(@NotNull DatabaseQuery.Order order) {
+        String key = this.statements.key;
+        String identifier = this.statements.identifier;
+        switch (order) {
+            case KEY_ASCENDING:
+                return key + " ASC";
+            case KEY_DESCENDING:
+                return key + " DESC";
+            case IDENTIFIER_ASCENDING:
+                return identifier + " ASC, " + key + " ASC";
+            case IDENTIFIER_DESCENDING:
+                return identifier + " DESC, " + key + " DESC";
+            case IDENTIFIER_NUMERIC_ASCENDING:
+                return this.statements.numericIdentifier + " ASC, " + key + " ASC";
+            default:
+                throw new IllegalArgumentException("Unsupported order " + order);
+        }
+    }
+
+    @NotNull
+    private Collection<DatabaseEntry<V>> readEntries(@NotNull ResultSet resultSet) throws SQLException {
+        Collection<DatabaseEntry<V>> results = new ArrayList<>();
+        while (resultSet.next()) {
+            DatabaseEntry<V> entry = this.readEntry(resultSet);
+            if (entry != null) {
+                results.add(entry);
+            }
+        }
+
+        return results;
+    }
+
+    @Nullable
+    private DatabaseEntry<V> readEntry(@NotNull ResultSet resultSet) throws SQLException {
+        byte[] data = this.dialect.getBlob(resultSet, "data");
+        if (data == null) {
+            return null;
+        }
+
+        // keep the raw bytes and only decode them once the value is actually requested
+        return DefaultDatabaseEntry.lazy(resultSet.getString("key"), resultSet.getString("identifier"), () -> this.decode(data), this);
+    }
+
     @Nullable
-    private V newInstance() {
+    private <T> T withRowBuffer(@NotNull SQLExceptionFunction<ByteBuf, T> function) throws SQLException {
+        ByteBuf buffer = this.provider.getAllocator().heapBuffer();
         try {
-            return this.type.getDeclaredConstructor().newInstance();
-        } catch (final NoSuchMethodException exception) {
-            System.err.println("Missing NoArgsConstructor in object class " + this.type.getName());
-        } catch (final IllegalAccessException | InvocationTargetException | InstantiationException exception) {
-            System.err.println("Error during initialize of type class " + this.type.getName());
-            exception.printStackTrace();
+            return function.apply(buffer);
+        } finally {
+            buffer.release();
         }
+    }
 
-        return null;
+    private boolean isLegacyLayout(@NotNull String selectColumnType) {
+        Boolean legacy = this.provider.executeQuery(
+                resultSet -> resultSet.next() && "text".equalsIgnoreCase(resultSet.getString(1)),
+                selectColumnType, this.name, "identifier"
+        );
+        return legacy != null && legacy;
+    }
+
+    @NotNull
+    private byte[] encode(@NotNull V value) {
+        int sizeHint = value.estimateSize();
+        ByteBuf buffer = sizeHint > 0
+                ? this.provider.getAllocator().heapBuffer(sizeHint)
+                : this.provider.getAllocator().heapBuffer();
+        try {
+            value.serialize(new DataBuffer(buffer));
+            ByteBuf encoded = this.provider.getAllocator().heapBuffer(buffer.readableBytes() + 5);
+            try {
+                this.codec.encode(buffer, encoded);
+                return ByteBufUtil.getBytes(encoded);
+            } finally {
+                encoded.release();
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Nullable
+    private V decode(@NotNull ResultSet resultSet, @NotNull ByteBuf buffer) throws SQLException {
+        buffer.clear();
+        try (InputStream inputStream = this.dialect.getBlobStream(resultSet, "data")) {
+            if (inputStream == null) {
+                return null;
+            }
+
+            buffer.ensureWritable(Math.max(inputStream.available(), MINIMUM_READ_SIZE));
+            while (buffer.writeBytes(inputStream, buffer.writableBytes()) != -1) {
+                buffer.ensureWritable(MINIMUM_READ_SIZE);
+            }
+        } catch (final IOException exception) {
+            throw new SQLException("Unable to read data column", exception);
+        }
+
+        return this.decode(buffer);
     }
 
     @Nullable
     private V decode(@NotNull byte[] data) {
-        V instance = this.newInstance();
+        return this.decode(Unpooled.wrappedBuffer(data));
+    }
+
+    @Nullable
+    private V decode(@NotNull ByteBuf buffer) {
+        V instance = DatabaseObjectFactory.newInstance(this.factory, this.type);
         if (instance == null) {
             return null;
         }
 
-        ByteBuffer byteBuffer = null;
+        ByteBuf decoded = this.codec.decode(buffer, this.provider.getAllocator());
         try {
-            byteBuffer = new ByteBuffer(Unpooled.wrappedBuffer(data));
-            instance.deserialize(byteBuffer);
+            instance.deserialize(new DataBuffer(decoded));
             return instance;
         } finally {
-            if (byteBuffer != null) {
-                byteBuffer.release();
+            if (decoded != buffer) {
+                decoded.release();
+            }
+        }
+    }
+
+    private final class PagedIterator implements Iterator<V> {
+
+        private Iterator<V> page = Collections.emptyIterator();
+
+        private String lastKey;
+
+        private boolean lastPage;
+
+        @Override
+        public boolean hasNext() {
+            // undecodable rows are skipped, so a page might be empty even if there are more rows
+            while (!this.page.hasNext() && !this.lastPage) {
+                this.readPage();
+            }
+
+            return this.page.hasNext();
+        }
+
+        @Override
+        public V next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
             }
+
+            return this.page.next();
+        }
+
+        private void readPage() {
+            List<Object> parameters = new ArrayList<>();
+            DatabaseQuery query = DatabaseQuery.query().keyAfter(this.lastKey).order(DatabaseQuery.Order.KEY_ASCENDING).limit(ITERATOR_PAGE_SIZE);
+            String sql = MySQLDatabase.this.buildQuery(query, parameters);
+
+            List<V> values = new ArrayList<>();
+            Integer rows = MySQLDatabase.this.provider.executeQuery(resultSet -> MySQLDatabase.this.withRowBuffer(buffer -> {
+                int count = 0;
+                while (resultSet.next()) {
+                    count++;
+                    this.lastKey = resultSet.getString("key");
+
+                    V value = MySQLDatabase.this.decode(resultSet, buffer);
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+
+                return count;
+            }), sql, parameters.toArray());
+            if (rows == null) {
+                throw new IllegalStateException("Unable to read table " + MySQLDatabase.this.name);
+            }
+
+            this.lastPage = rows < ITERATOR_PAGE_SIZE;
+            this.page = values.iterator();
         }
     }
 }
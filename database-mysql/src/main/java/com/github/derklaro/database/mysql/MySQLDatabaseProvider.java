@@ -23,10 +23,16 @@
  */
 package com.github.derklaro.database.mysql;
 
+import com.github.derklaro.database.mysql.dialect.SQLDialect;
+import com.github.derklaro.database.mysql.util.DatabaseExecutors;
+import com.github.derklaro.database.mysql.util.ResultSetSpliterator;
 import com.github.derklaro.database.mysql.util.SQLExceptionFunction;
 import com.zaxxer.hikari.HikariDataSource;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import com.github.derklaro.database.api.Database;
 import com.github.derklaro.database.api.DatabaseProvider;
+import com.github.derklaro.database.api.codec.ValueCodec;
 import com.github.derklaro.database.api.objects.DatabaseObject;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -40,79 +46,153 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class MySQLDatabaseProvider implements DatabaseProvider {
 
-    private final Map<Class<? extends DatabaseObject>, Database<? extends DatabaseObject>> databases = new ConcurrentHashMap<>();
+    private static final int BATCH_SIZE = 1000;
+
+    private final Map<String, MySQLDatabase<?>> databases = new ConcurrentHashMap<>();
 
     public MySQLDatabaseProvider(@NotNull HikariDataSource hikariDataSource) {
+        this(hikariDataSource, DatabaseExecutors.newBoundedExecutor(hikariDataSource.getMaximumPoolSize()));
+    }
+
+    public MySQLDatabaseProvider(@NotNull HikariDataSource hikariDataSource, @NotNull SQLDialect dialect) {
+        this(hikariDataSource, DatabaseExecutors.newBoundedExecutor(hikariDataSource.getMaximumPoolSize()), PooledByteBufAllocator.DEFAULT, dialect);
+    }
+
+    public MySQLDatabaseProvider(@NotNull HikariDataSource hikariDataSource, @NotNull Executor executor) {
+        this(hikariDataSource, executor, PooledByteBufAllocator.DEFAULT);
+    }
+
+    /**
+     * Creates a provider which resolves the sql dialect from the jdbc driver of the first connection.
+     */
+    public MySQLDatabaseProvider(@NotNull HikariDataSource hikariDataSource, @NotNull Executor executor, @NotNull ByteBufAllocator allocator) {
         this.hikariDataSource = hikariDataSource;
+        this.executor = executor;
+        this.allocator = allocator;
+    }
+
+    public MySQLDatabaseProvider(@NotNull HikariDataSource hikariDataSource, @NotNull Executor executor,
+                                 @NotNull ByteBufAllocator allocator, @NotNull SQLDialect dialect) {
+        this(hikariDataSource, executor, allocator);
+        this.dialect = dialect;
     }
 
     private final HikariDataSource hikariDataSource;
 
+    private final Executor executor;
+
+    private final ByteBufAllocator allocator;
+
+    private volatile SQLDialect dialect;
+
     @Override
     public @NotNull CompletableFuture<Boolean> isConnected() {
-        return CompletableFuture.supplyAsync(this.hikariDataSource::isRunning);
+        return this.supplyAsync(this.hikariDataSource::isRunning);
     }
 
     @Override
     public @NotNull CompletableFuture<Boolean> closeConnection() {
-        return CompletableFuture.supplyAsync(() -> {
+        return this.supplyAsync(() -> {
             this.hikariDataSource.close();
             return this.hikariDataSource.isClosed();
         });
     }
 
     @Override
+    public @NotNull <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory) {
+        return this.getDatabase(name, type, factory, ValueCodec.none());
+    }
+
+    /**
+     * Opens the database with the given name and creates its table if needed. A table still using the legacy layout is
+     * migrated before this method returns, which blocks the writers of the table while its rows are copied.
+     */
+    @NotNull
     @SuppressWarnings("unchecked")
-    public @NotNull <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type) {
-        if (this.databases.containsKey(type)) {
-            return (Database<V>) this.databases.get(type);
+    public <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory, @NotNull ValueCodec codec) {
+        MySQLDatabase<?> database = this.databases.get(name);
+        if (database == null) {
+            // the table is created outside of the map, creating or migrating it blocks and must not hold a lock of the map.
+            // the statements are idempotent, so it does not matter if two threads open the same database at the same time
+            MySQLDatabase<V> created = new MySQLDatabase<>(this, name, type, factory, codec);
+            created.createTable();
+
+            database = this.databases.putIfAbsent(name, created);
+            if (database == null) {
+                return created;
+            }
+        }
+
+        if (!database.getCodec().equals(codec)) {
+            throw new IllegalArgumentException("Database " + name + " was already opened with a different value codec");
         }
 
-        Database<V> database = new MySQLDatabase<>(this, name, type);
-        this.databases.put(type, database);
-        return database;
+        return (Database<V>) database;
     }
 
     @Override
     public @NotNull CompletableFuture<Boolean> existsDatabase(@NotNull String name) {
-        return CompletableFuture.supplyAsync(() -> this.executeQuery(
-                ResultSet::next, "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = " + name + " LIMIT 1"
-        ));
+        return this.supplyAsync(() -> this.executeQuery(ResultSet::next, this.getDialect().selectTableName(), name));
     }
 
     @Override
     public @NotNull CompletableFuture<Boolean> deleteDatabase(@NotNull String name) {
-        return CompletableFuture.supplyAsync(() -> this.executeUpdate("DROP TABLE " + name) != -1);
+        return this.supplyAsync(() -> this.executeUpdate("DROP TABLE " + this.getDialect().quote(name)) != -1);
     }
 
     @Override
     public @NotNull CompletableFuture<Collection<String>> getDatabaseNames() {
-        return CompletableFuture.supplyAsync(() -> this.executeQuery(resultSet -> {
+        return this.supplyAsync(() -> this.executeQuery(resultSet -> {
             Collection<String> result = new ArrayList<>();
             while (resultSet.next()) {
-                result.add(resultSet.getString("table_name"));
+                result.add(resultSet.getString(1));
             }
 
             return result;
-        }, "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA='PUBLIC'"));
+        }, this.getDialect().selectTableNames()));
     }
 
-    final int executeUpdate(@NotNull String query, @NotNull String key, @NotNull String identifier, @NotNull byte[] data, int dataIndex) {
-        try (Connection connection = this.hikariDataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
-            if (dataIndex == 1) {
-                statement.setBytes(1, data);
-                statement.setString(2, key);
-                statement.setString(3, identifier);
-            } else {
-                statement.setString(1, key);
-                statement.setString(2, identifier);
-                statement.setBytes(3, data);
+    @NotNull
+    final SQLDialect getDialect() {
+        SQLDialect dialect = this.dialect;
+        if (dialect == null) {
+            try (Connection connection = this.hikariDataSource.getConnection()) {
+                dialect = this.dialect = SQLDialect.forDriver(connection.getMetaData().getDriverName());
+            } catch (final SQLException exception) {
+                // a guessed dialect would be kept by the databases created with it, so the caller has to try again
+                throw new IllegalStateException("Unable to detect the sql dialect of the data source", exception);
             }
+        }
+
+        return dialect;
+    }
+
+    @NotNull
+    final Executor getExecutor() {
+        return this.executor;
+    }
 
+    @NotNull
+    final ByteBufAllocator getAllocator() {
+        return this.allocator;
+    }
+
+    @NotNull
+    final <T> CompletableFuture<T> supplyAsync(@NotNull Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, this.executor);
+    }
+
+    final int executeUpdate(@NotNull String query, @NotNull Object... objects) {
+        try (Connection connection = this.hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            this.bindParameters(statement, objects);
             return statement.executeUpdate();
         } catch (final SQLException exception) {
             exception.printStackTrace();
@@ -121,15 +201,28 @@ public class MySQLDatabaseProvider implements DatabaseProvider {
         return -1;
     }
 
-    final int executeUpdate(@NotNull String query, @NotNull Object... objects) {
+    final int executeBatch(@NotNull String query, @NotNull Collection<Object[]> batch) {
         try (Connection connection = this.hikariDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
-            int i = 1;
-            for (Object object : objects) {
-                statement.setString(i++, object.toString());
+            connection.setAutoCommit(false);
+
+            int updated = 0;
+            int pending = 0;
+            for (Object[] objects : batch) {
+                this.bindParameters(statement, objects);
+                statement.addBatch();
+
+                if (++pending == BATCH_SIZE) {
+                    updated += this.executeChunk(connection, statement);
+                    pending = 0;
+                }
             }
 
-            return statement.executeUpdate();
+            if (pending > 0) {
+                updated += this.executeChunk(connection, statement);
+            }
+
+            return updated;
         } catch (final SQLException exception) {
             exception.printStackTrace();
         }
@@ -137,15 +230,18 @@ public class MySQLDatabaseProvider implements DatabaseProvider {
         return -1;
     }
 
+    @Nullable
+    final <T> T withConnection(@NotNull SQLExceptionFunction<Connection, T> function) throws SQLException {
+        try (Connection connection = this.hikariDataSource.getConnection()) {
+            return function.apply(connection);
+        }
+    }
+
     @Nullable
     final <T> T executeQuery(@NotNull SQLExceptionFunction<ResultSet, T> consumer, @NotNull String query, @NotNull Object... objects) {
         try (Connection connection = this.hikariDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
-            int i = 1;
-            for (Object object : objects) {
-                statement.setString(i++, object.toString());
-            }
-
+            this.bindParameters(statement, objects);
             try (ResultSet resultSet = statement.executeQuery()) {
                 return consumer.apply(resultSet);
             }
@@ -155,4 +251,64 @@ public class MySQLDatabaseProvider implements DatabaseProvider {
 
         return null;
     }
+
+    @NotNull
+    final <T> Stream<T> executeStreamingQuery(@NotNull SQLExceptionFunction<ResultSet, T> mapper, @NotNull String query, @NotNull Object... objects) {
+        return this.executeStreamingQuery(mapper, () -> {
+        }, query, objects);
+    }
+
+    @NotNull
+    final <T> Stream<T> executeStreamingQuery(@NotNull SQLExceptionFunction<ResultSet, T> mapper, @NotNull Runnable closeHandler,
+                                              @NotNull String query, @NotNull Object... objects) {
+        Connection connection = null;
+        try {
+            connection = this.hikariDataSource.getConnection();
+            PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(this.getDialect().streamingFetchSize(connection));
+            this.bindParameters(statement, objects);
+
+            ResultSetSpliterator<T> spliterator = new ResultSetSpliterator<>(connection, statement, statement.executeQuery(), mapper, closeHandler);
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+        } catch (final SQLException exception) {
+            closeHandler.run();
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (final SQLException closeException) {
+                    exception.addSuppressed(closeException);
+                }
+            }
+
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private int executeChunk(@NotNull Connection connection, @NotNull PreparedStatement statement) throws SQLException {
+        try {
+            int updated = 0;
+            for (int count : statement.executeBatch()) {
+                updated += Math.max(0, count);
+            }
+
+            connection.commit();
+            return updated;
+        } catch (final SQLException exception) {
+            connection.rollback();
+            throw exception;
+        }
+    }
+
+    private void bindParameters(@NotNull PreparedStatement statement, @NotNull Object... objects) throws SQLException {
+        int i = 1;
+        for (Object object : objects) {
+            if (object instanceof byte[]) {
+                this.getDialect().setBlob(statement, i++, (byte[]) object);
+            } else if (object instanceof Number) {
+                statement.setLong(i++, ((Number) object).longValue());
+            } else {
+                statement.setString(i++, object.toString());
+            }
+        }
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql;
+
+import com.github.derklaro.database.mysql.dialect.SQLDialect;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+final class MySQLStatements {
+
+    MySQLStatements(@NotNull SQLDialect dialect, @NotNull String name) {
+        String table = dialect.quote(name);
+        this.key = dialect.quote("key");
+        this.identifier = dialect.quote("identifier");
+        this.data = dialect.quote("data");
+        this.numericIdentifier = dialect.numericValue("identifier");
+
+        this.createTable = dialect.createTable(name);
+        this.upsert = dialect.upsert(name);
+        this.selectByKey = dialect.limit("SELECT " + this.data + " FROM " + table + " WHERE " + this.key + " = ?", "1");
+        this.selectByKeyOrIdentifier = dialect.limit("SELECT " + this.data + " FROM " + table
+                + " WHERE " + this.key + " = ? OR " + this.identifier + " = ?", "1");
+        this.updateIdentifier = "UPDATE " + table + " SET " + this.identifier + " = ? WHERE " + this.key + " = ?";
+        this.deleteByKey = "DELETE FROM " + table + " WHERE " + this.key + " = ?";
+        this.deleteByIdentifier = "DELETE FROM " + table + " WHERE " + this.identifier + " = ?";
+        this.sortByIdentifier = dialect.limit("SELECT " + this.data + " FROM " + table + " ORDER BY " + this.numericIdentifier, "?");
+        this.selectKeys = "SELECT " + this.key + " FROM " + table;
+        this.selectEntries = "SELECT " + this.key + ", " + this.identifier + ", " + this.data + " FROM " + table;
+        this.selectData = "SELECT " + this.data + " FROM " + table;
+        this.count = "SELECT COUNT(*) FROM " + table;
+        this.truncate = dialect.truncate(name);
+    }
+
+    final String key;
+    final String identifier;
+    final String data;
+    final String numericIdentifier;
+
+    final List<String> createTable;
+    final String upsert;
+    final String selectByKey;
+    final String selectByKeyOrIdentifier;
+    final String updateIdentifier;
+    final String deleteByKey;
+    final String deleteByIdentifier;
+    final String sortByIdentifier;
+    final String selectKeys;
+    final String selectEntries;
+    final String selectData;
+    final String count;
+    final String truncate;
+}
@@ -28,21 +28,54 @@ import com.github.derklaro.database.api.DatabaseProvider;
 import com.github.derklaro.database.api.connection.ConnectionConfiguration;
 import com.github.derklaro.database.api.connection.ConnectionProvider;
 import com.github.derklaro.database.mysql.MySQLDatabaseProvider;
+import com.github.derklaro.database.mysql.dialect.SQLDialect;
+import com.github.derklaro.database.mysql.util.DatabaseExecutors;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 public class MySQLConnectionProvider implements ConnectionProvider {
 
-    private static final String CONNECT_URL = "jdbc:mysql://%s:%d/%s?serverTimezone=UTC&useSSL=%b&trustServerCertificate=%b";
+    public static final int MAXIMUM_POOL_SIZE = 20;
+    private static final String CONNECT_URL = "jdbc:mysql://%s:%d/%s?serverTimezone=UTC&useSSL=%b&trustServerCertificate=%b&rewriteBatchedStatements=true";
 
     private final Collection<DatabaseProvider> providers = new CopyOnWriteArrayList<>();
 
+    public MySQLConnectionProvider() {
+        this(DatabaseExecutors.newBoundedExecutor(MAXIMUM_POOL_SIZE));
+    }
+
+    public MySQLConnectionProvider(@NotNull Executor executor) {
+        this(executor, PooledByteBufAllocator.DEFAULT);
+    }
+
+    public MySQLConnectionProvider(@NotNull Executor executor, @NotNull ByteBufAllocator allocator) {
+        this.executor = executor;
+        this.allocator = allocator;
+    }
+
+    private final Executor executor;
+
+    private final ByteBufAllocator allocator;
+
     @Override
     public @NotNull CompletableFuture<Optional<DatabaseProvider>> connect(@NotNull ConnectionConfiguration connectionConfiguration) {
+        return this.connect(connectionConfiguration, this.executor);
+    }
+
+    /**
+     * Connects to the database and runs all operations of the created provider on the given executor instead of the
+     * executor shared by all connections of this provider.
+     */
+    @NotNull
+    public CompletableFuture<Optional<DatabaseProvider>> connect(@NotNull ConnectionConfiguration connectionConfiguration, @NotNull Executor executor) {
         if (!connectionConfiguration.isLoaded()) {
             throw new RuntimeException("Can only connect to a database using a loaded connection configuration");
         }
@@ -63,24 +96,34 @@ public class MySQLConnectionProvider implements ConnectionProvider {
             hikariDataSource.setUsername(connectionConfiguration.getUserName());
             hikariDataSource.setPassword(connectionConfiguration.getPassword());
 
+            hikariDataSource.addDataSourceProperty("cachePrepStmts", "true");
+            hikariDataSource.addDataSourceProperty("useServerPrepStmts", "true");
+            hikariDataSource.addDataSourceProperty("prepStmtCacheSize", "250");
+            hikariDataSource.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+
             hikariDataSource.setValidationTimeout(5000);
             hikariDataSource.setConnectionTimeout(5000);
-            hikariDataSource.setMaximumPoolSize(20);
+            hikariDataSource.setMaximumPoolSize(MAXIMUM_POOL_SIZE);
 
             hikariDataSource.validate();
-            return hikariDataSource.isRunning() ? Optional.of(new MySQLDatabaseProvider(hikariDataSource)) : Optional.empty();
-        });
+            if (!hikariDataSource.isRunning()) {
+                return Optional.empty();
+            }
+
+            DatabaseProvider provider = new MySQLDatabaseProvider(hikariDataSource, executor, this.allocator, SQLDialect.mysql());
+            this.providers.add(provider);
+            return Optional.of(provider);
+        }, executor);
     }
 
     @Override
     public @NotNull CompletableFuture<Void> closeAllConnections() {
-        return CompletableFuture.supplyAsync(() -> {
-            for (DatabaseProvider provider : this.providers) {
-                provider.closeConnection().join();
-            }
+        Collection<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (DatabaseProvider provider : this.providers) {
+            futures.add(provider.closeConnection());
+        }
 
-            this.providers.clear();
-            return null;
-        });
+        this.providers.clear();
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
     }
 }
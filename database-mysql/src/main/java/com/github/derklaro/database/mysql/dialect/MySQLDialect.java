@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.dialect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+
+final class MySQLDialect implements SQLDialect {
+
+    static final SQLDialect INSTANCE = new MySQLDialect();
+
+    /**
+     * The type of the key and identifier columns. The binary collation compares keys case sensitive and orders them by
+     * code point like {@link com.github.derklaro.database.api.query.DatabaseQuery#compareCodePoints(String, String)},
+     * the default collation of the server would treat "Key" and "key" as one key. utf8mb4_bin is a PAD SPACE collation
+     * though, trailing spaces are ignored when comparing: "a" and "a " are one key in MySQL but two keys in the other
+     * databases.
+     */
+    static final String KEY_COLUMN_TYPE = "VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL";
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int MIGRATION_LOCK_TIMEOUT_SECONDS = 300;
+    private static final int MAXIMUM_LOCK_NAME_LENGTH = 64;
+
+    @Override
+    public @NotNull String quote(@NotNull String name) {
+        return "`" + name.replace("`", "``") + "`";
+    }
+
+    @Override
+    public @NotNull List<String> createTable(@NotNull String table) {
+        return Collections.singletonList("CREATE TABLE IF NOT EXISTS " + this.quote(table) + " (`key` " + KEY_COLUMN_TYPE + ", "
+                + "`identifier` " + KEY_COLUMN_TYPE + ", `data` LONGBLOB, PRIMARY KEY (`key`), INDEX `identifier_index` (`identifier`))");
+    }
+
+    @Override
+    public @NotNull String upsert(@NotNull String table) {
+        return "INSERT INTO " + this.quote(table) + " (`key`, `identifier`, `data`) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE `identifier` = VALUES(`identifier`), `data` = VALUES(`data`)";
+    }
+
+    @Override
+    public @NotNull String limit(@NotNull String query, @NotNull String count) {
+        return query + " LIMIT " + count;
+    }
+
+    @Override
+    public @NotNull String numericValue(@NotNull String column) {
+        return this.quote(column) + "+0";
+    }
+
+    @Override
+    public @NotNull String truncate(@NotNull String table) {
+        return "TRUNCATE TABLE " + this.quote(table);
+    }
+
+    @Override
+    public @NotNull String selectTableNames() {
+        return "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = DATABASE()";
+    }
+
+    @Override
+    public @NotNull String selectTableName() {
+        return "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? LIMIT 1";
+    }
+
+    @Override
+    public @NotNull String selectColumnType() {
+        return "SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+    }
+
+    @Override
+    public void migrateLegacyTable(@NotNull Connection connection, @NotNull String table) throws SQLException {
+        // only one node migrates the table, the others wait for the lock and find the migrated table afterwards
+        String lockName = "database_migration_" + table;
+        if (lockName.length() > MAXIMUM_LOCK_NAME_LENGTH) {
+            lockName = lockName.substring(0, MAXIMUM_LOCK_NAME_LENGTH);
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, lockName);
+            statement.setInt(2, MIGRATION_LOCK_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the migration lock of table " + table);
+                }
+            }
+        }
+
+        try {
+            if (this.isLegacyTable(connection, table)) {
+                this.copyLegacyTable(connection, table);
+            }
+        } finally {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                statement.setString(1, lockName);
+                statement.executeQuery().close();
+            }
+        }
+    }
+
+    @Override
+    public int streamingFetchSize(@NotNull Connection connection) throws SQLException {
+        String driverName = connection.getMetaData().getDriverName().toLowerCase();
+        // the mysql and mariadb drivers only stream the rows one by one instead of reading the whole result
+        // into memory when the fetch size is Integer.MIN_VALUE, other drivers like h2 in mysql mode reject it
+        return driverName.contains("mysql") || driverName.contains("mariadb") ? Integer.MIN_VALUE : FETCH_SIZE;
+    }
+
+    private boolean isLegacyTable(@NotNull Connection connection, @NotNull String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(this.selectColumnType())) {
+            statement.setString(1, table);
+            statement.setString(2, "identifier");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && "text".equalsIgnoreCase(resultSet.getString(1));
+            }
+        }
+    }
+
+    /**
+     * Copies the newest row of every key into a new table and swaps it in, the legacy table is kept as
+     * {@code <table>_legacy}. Writers of the table are blocked until the swap, renaming locked tables requires
+     * MySQL 8.0.13 or newer.
+     */
+    private void copyLegacyTable(@NotNull Connection connection, @NotNull String table) throws SQLException {
+        String quoted = this.quote(table);
+        String migrating = this.quote(table + "_migrating");
+        try (Statement statement = connection.createStatement()) {
+            // a failed earlier attempt might have left its copy behind
+            statement.executeUpdate("DROP TABLE IF EXISTS " + migrating);
+            statement.executeUpdate(this.createTable(table + "_migrating").get(0));
+
+            statement.execute("LOCK TABLES " + quoted + " WRITE, " + migrating + " WRITE");
+            try {
+                // every overwrite added a row to the legacy table, as it has no primary key innodb scans it in insertion
+                // order and the last row of each key wins
+                statement.executeUpdate("INSERT INTO " + migrating + " (`key`, `identifier`, `data`) "
+                        + "SELECT `key`, COALESCE(`identifier`, ''), `data` FROM " + quoted + " WHERE `key` IS NOT NULL "
+                        + "ON DUPLICATE KEY UPDATE `identifier` = VALUES(`identifier`), `data` = VALUES(`data`)");
+                statement.executeUpdate("RENAME TABLE " + quoted + " TO " + this.quote(table + "_legacy") + ", " + migrating + " TO " + quoted);
+            } finally {
+                statement.execute("UNLOCK TABLES");
+            }
+        }
+    }
+}
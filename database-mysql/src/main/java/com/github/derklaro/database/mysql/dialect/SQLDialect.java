@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.dialect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The parts of the sql syntax which differ between the supported database engines. Table and column names are
+ * passed unquoted, a dialect quotes them itself.
+ */
+public interface SQLDialect {
+
+    @NotNull
+    static SQLDialect mysql() {
+        return MySQLDialect.INSTANCE;
+    }
+
+    @NotNull
+    static SQLDialect h2() {
+        return H2Dialect.INSTANCE;
+    }
+
+    @NotNull
+    static SQLDialect sqlite() {
+        return SQLiteDialect.INSTANCE;
+    }
+
+    /**
+     * Resolves the dialect from the name reported by the jdbc driver, falling back to mysql for unknown drivers.
+     */
+    @NotNull
+    static SQLDialect forDriver(@NotNull String driverName) {
+        String name = driverName.toLowerCase();
+        if (name.startsWith("h2")) {
+            return h2();
+        }
+
+        if (name.contains("sqlite")) {
+            return sqlite();
+        }
+
+        return mysql();
+    }
+
+    @NotNull
+    String quote(@NotNull String name);
+
+    /**
+     * The statements creating the table with the key, identifier and data column and an index on the identifier
+     * if they do not exist yet.
+     */
+    @NotNull
+    List<String> createTable(@NotNull String table);
+
+    /**
+     * An insert of the key, identifier and data parameters replacing the identifier and data of an existing row
+     * with the same key.
+     */
+    @NotNull
+    String upsert(@NotNull String table);
+
+    @NotNull
+    String limit(@NotNull String query, @NotNull String count);
+
+    /**
+     * An expression converting the leading number of a string column to a number and everything else to zero,
+     * like {@code column+0} does in mysql.
+     */
+    @NotNull
+    String numericValue(@NotNull String column);
+
+    @NotNull
+    String truncate(@NotNull String table);
+
+    @NotNull
+    String selectTableNames();
+
+    /**
+     * Selects the name of the table given as the only parameter if it exists.
+     */
+    @NotNull
+    String selectTableName();
+
+    /**
+     * Selects the data type of the column given as second parameter in the table given as first parameter, or null
+     * if tables of this dialect never used a legacy layout which has to be migrated.
+     */
+    @Nullable
+    String selectColumnType();
+
+    int streamingFetchSize(@NotNull Connection connection) throws SQLException;
+
+    /**
+     * Migrates a table which still uses the legacy layout using the given connection. Only called if
+     * {@link #selectColumnType()} detected the legacy layout, tables of the other dialects never used it.
+     */
+    default void migrateLegacyTable(@NotNull Connection connection, @NotNull String table) throws SQLException {
+        throw new UnsupportedOperationException("Tables of this dialect never used the legacy layout");
+    }
+
+    default void setBlob(@NotNull PreparedStatement statement, int index, @NotNull byte[] data) throws SQLException {
+        statement.setBytes(index, data);
+    }
+
+    @Nullable
+    default byte[] getBlob(@NotNull ResultSet resultSet, @NotNull String column) throws SQLException {
+        return resultSet.getBytes(column);
+    }
+
+    @Nullable
+    default InputStream getBlobStream(@NotNull ResultSet resultSet, @NotNull String column) throws SQLException {
+        return resultSet.getBinaryStream(column);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.dialect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The sqlite dialect, requiring sqlite 3.24 or newer for the upsert syntax. Sqlite only allows one writer at a
+ * time, so the pool should either use a single connection or the database should run in wal mode.
+ */
+final class SQLiteDialect implements SQLDialect {
+
+    static final SQLDialect INSTANCE = new SQLiteDialect();
+
+    private static final int FETCH_SIZE = 1000;
+
+    @Override
+    public @NotNull String quote(@NotNull String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public @NotNull List<String> createTable(@NotNull String table) {
+        return Arrays.asList(
+                "CREATE TABLE IF NOT EXISTS " + this.quote(table) + " (\"key\" VARCHAR(255) NOT NULL PRIMARY KEY, "
+                        + "\"identifier\" VARCHAR(255) NOT NULL, \"data\" BLOB)",
+                // index names are unique per database, not per table
+                "CREATE INDEX IF NOT EXISTS " + this.quote(table + "_identifier_index") + " ON " + this.quote(table) + " (\"identifier\")"
+        );
+    }
+
+    @Override
+    public @NotNull String upsert(@NotNull String table) {
+        return "INSERT INTO " + this.quote(table) + " (\"key\", \"identifier\", \"data\") VALUES (?, ?, ?) "
+                + "ON CONFLICT (\"key\") DO UPDATE SET \"identifier\" = excluded.\"identifier\", \"data\" = excluded.\"data\"";
+    }
+
+    @Override
+    public @NotNull String limit(@NotNull String query, @NotNull String count) {
+        return query + " LIMIT " + count;
+    }
+
+    @Override
+    public @NotNull String numericValue(@NotNull String column) {
+        // like mysql sqlite converts the longest numeric prefix and everything else to zero
+        return "CAST(" + this.quote(column) + " AS REAL)";
+    }
+
+    @Override
+    public @NotNull String truncate(@NotNull String table) {
+        return "DELETE FROM " + this.quote(table);
+    }
+
+    @Override
+    public @NotNull String selectTableNames() {
+        return "SELECT name FROM sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite!_%' ESCAPE '!'";
+    }
+
+    @Override
+    public @NotNull String selectTableName() {
+        return "SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?";
+    }
+
+    @Override
+    public @Nullable String selectColumnType() {
+        return null;
+    }
+
+    @Override
+    public int streamingFetchSize(@NotNull Connection connection) {
+        return FETCH_SIZE;
+    }
+}
@@ -24,45 +24,16 @@
 package com.github.derklaro.database.mysql.entry;
 
 import com.github.derklaro.database.api.Database;
-import com.github.derklaro.database.api.objects.DatabaseEntry;
 import com.github.derklaro.database.api.objects.DatabaseObject;
-import org.jetbrains.annotations.NotNull;
 
-public class DefaultDatabaseEntry<V extends DatabaseObject> implements DatabaseEntry<V> {
+/**
+ * @deprecated moved to {@link com.github.derklaro.database.api.objects.DefaultDatabaseEntry} to be shared by all
+ * databases, this class will be removed in a future release.
+ */
+@Deprecated
+public class DefaultDatabaseEntry<V extends DatabaseObject> extends com.github.derklaro.database.api.objects.DefaultDatabaseEntry<V> {
 
     public DefaultDatabaseEntry(String key, String identifier, V entry, Database<V> source) {
-        this.key = key;
-        this.identifier = identifier;
-        this.entry = entry;
-        this.source = source;
-    }
-
-    private final String key;
-
-    private final String identifier;
-
-    private final V entry;
-
-    private final Database<V> source;
-
-    @Override
-    public @NotNull String getKey() {
-        return this.key;
-    }
-
-    @Override
-    public @NotNull String getIdentifier() {
-        return this.identifier;
-    }
-
-    @NotNull
-    @Override
-    public V getEntry() {
-        return this.entry;
-    }
-
-    @Override
-    public @NotNull Database<V> getDatabase() {
-        return this.source;
+        super(key, identifier, entry, source);
     }
 }
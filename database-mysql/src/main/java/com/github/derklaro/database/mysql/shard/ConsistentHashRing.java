@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.shard;
+
+import com.github.derklaro.database.api.util.KeyHashing;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps keys to shards using a ring of virtual nodes. Adding or removing a shard only moves the keys of the ring
+ * segments owned by that shard instead of reassigning almost all keys like a modulo would.
+ */
+final class ConsistentHashRing {
+
+    ConsistentHashRing(@NotNull List<String> shardNames, int virtualNodes) {
+        if (shardNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual node count must be positive, got " + virtualNodes);
+        }
+
+        long[] points = new long[shardNames.size() * virtualNodes];
+        for (int shard = 0; shard < shardNames.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                int index = shard * virtualNodes + node;
+                points[index] = KeyHashing.hash(shardNames.get(shard) + "#" + node);
+            }
+        }
+
+        // sort the points together with their shard by sorting indexes ordered by point
+        Integer[] order = new Integer[points.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (left, right) -> Long.compare(points[left], points[right]));
+        this.points = new long[order.length];
+        this.shards = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            this.points[i] = points[order[i]];
+            this.shards[i] = order[i] / virtualNodes;
+        }
+    }
+
+    private final long[] points;
+
+    private final int[] shards;
+
+    int shard(@NotNull String key) {
+        int index = Arrays.binarySearch(this.points, KeyHashing.hash(key));
+        if (index < 0) {
+            // the first point after the hash owns the key, wrapping around at the end of the ring
+            index = -index - 1;
+            if (index == this.points.length) {
+                index = 0;
+            }
+        }
+
+        return this.shards[index];
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.shard;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Spreads the entries of a database over the same database on every shard. Operations on keys go to the shard
+ * owning the key, everything else runs on all shards in parallel and the results are merged.
+ */
+public class ShardedDatabase<V extends DatabaseObject> implements Database<V> {
+
+    ShardedDatabase(@NotNull List<Database<V>> shards, @NotNull ConsistentHashRing ring) {
+        this.shards = shards;
+        this.ring = ring;
+    }
+
+    private final List<Database<V>> shards;
+
+    private final ConsistentHashRing ring;
+
+    @Override
+    public @NotNull CompletableFuture<Void> insert(@NotNull String key, @NotNull String identifier, @NotNull V value) {
+        return this.shardOf(key).insert(key, identifier, value);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull Map<String, Map.Entry<String, V>> entries) {
+        Map<Integer, Map<String, Map.Entry<String, V>>> partitions = new HashMap<>();
+        for (Map.Entry<String, Map.Entry<String, V>> entry : entries.entrySet()) {
+            partitions.computeIfAbsent(this.ring.shard(entry.getKey()), shard -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+        }
+
+        Collection<CompletableFuture<Void>> futures = new ArrayList<>(partitions.size());
+        for (Map.Entry<Integer, Map<String, Map.Entry<String, V>>> partition : partitions.entrySet()) {
+            futures.add(this.shards.get(partition.getKey()).insertAll(partition.getValue()));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Optional<V>> get(@NotNull String key, @Nullable String identifier) {
+        CompletableFuture<Optional<V>> result = this.shardOf(key).get(key, null);
+        if (identifier == null) {
+            return result;
+        }
+
+        // an entry with the identifier may live on any shard
+        return result.thenCompose(value -> value.isPresent() ? CompletableFuture.completedFuture(value) : this.fanOut(
+                shard -> shard.get(key, identifier),
+                results -> results.stream().filter(Optional::isPresent).findFirst().orElse(Optional.empty())
+        ));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateIdentifier(@NotNull String key, @NotNull String identifier) {
+        return this.shardOf(key).updateIdentifier(key, identifier);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull String key) {
+        return this.shardOf(key).remove(key);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> remove(@NotNull Collection<String> keys) {
+        Map<Integer, Collection<String>> partitions = this.partition(keys);
+        Collection<CompletableFuture<Void>> futures = new ArrayList<>(partitions.size());
+        for (Map.Entry<Integer, Collection<String>> partition : partitions.entrySet()) {
+            futures.add(this.shards.get(partition.getKey()).remove(partition.getValue()));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeAll(@NotNull String identifier) {
+        return this.fanOut(shard -> shard.removeAll(identifier), results -> null);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<V>> sortByIdentifier(int limit) {
+        // every shard returns its own entries in order, merging them keeps the global order
+        DatabaseQuery query = DatabaseQuery.query().order(DatabaseQuery.Order.IDENTIFIER_NUMERIC_ASCENDING).limit(limit);
+        return this.query(query).thenApply(entries -> entries.stream().map(DatabaseEntry::getEntry).collect(Collectors.toList()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getKeys() {
+        return this.fanOut(Database::getKeys, ShardedDatabase::concat);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries() {
+        return this.fanOut(Database::getEntries, ShardedDatabase::concat);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntries(@NotNull Predicate<String> identifierFilter) {
+        return this.fanOut(shard -> shard.getEntries(identifierFilter), ShardedDatabase::concat);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> getEntriesFiltered(@NotNull Predicate<DatabaseEntry<V>> entryFilter) {
+        return this.fanOut(shard -> shard.getEntriesFiltered(entryFilter), ShardedDatabase::concat);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<DatabaseEntry<V>>> query(@NotNull DatabaseQuery query) {
+        int limit = query.getLimit() < 0 ? Integer.MAX_VALUE : query.getLimit();
+        // queries for specific keys only have to ask the shards owning them
+        Collection<Database<V>> targets = query.getKeys() == null ? this.shards : this.partition(query.getKeys()).keySet().stream()
+                .map(this.shards::get)
+                .collect(Collectors.toList());
+        if (query.getOrder() == null) {
+            return this.fanOut(targets, shard -> shard.query(query), results -> {
+                List<DatabaseEntry<V>> entries = concat(results);
+                return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+            });
+        }
+
+        // the order compares code points like the binary collation of the shards, otherwise the merge would interleave
+        // the sorted results of the shards wrongly for keys with supplementary characters
+        Comparator<DatabaseEntry<V>> comparator = query.getOrder().comparator();
+        return this.fanOut(targets, shard -> shard.query(query), results -> merge(results, comparator, limit));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<DatabasePage<V>> page(@Nullable String afterKey, int limit) {
+        return DatabasePage.query(this, afterKey, limit);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Stream<DatabaseEntry<V>>> stream() {
+        List<CompletableFuture<Stream<DatabaseEntry<V>>>> futures = new ArrayList<>(this.shards.size());
+        for (Database<V> shard : this.shards) {
+            futures.add(shard.stream());
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((result, throwable) -> {
+            List<Stream<DatabaseEntry<V>>> streams = new ArrayList<>(futures.size());
+            for (CompletableFuture<Stream<DatabaseEntry<V>>> future : futures) {
+                if (!future.isCompletedExceptionally()) {
+                    streams.add(future.join());
+                }
+            }
+
+            if (throwable != null) {
+                // nobody will ever see the streams of the other shards, they hold a connection until they are closed
+                streams.forEach(Stream::close);
+                throw throwable instanceof CompletionException ? (CompletionException) throwable : new CompletionException(throwable);
+            }
+
+            return streams.stream()
+                    .flatMap(Function.identity())
+                    // streams of shards which were not reached by the consumer are still open
+                    .onClose(() -> streams.forEach(Stream::close));
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> clear() {
+        return this.fanOut(Database::clear, results -> null);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> getSize() {
+        return this.fanOut(Database::getSize, sizes -> sizes.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Iterator<V>> iterator() {
+        return this.streamValues().thenApply(Stream::iterator);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Spliterator<V>> spliterator() {
+        return this.streamValues().thenApply(Stream::spliterator);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> forEach(@NotNull Consumer<V> consumer) {
+        // the shards are read in parallel, but the consumer is only called by one of them at a time
+        Consumer<V> synchronizedConsumer = value -> {
+            synchronized (consumer) {
+                consumer.accept(value);
+            }
+        };
+        return this.fanOut(shard -> shard.forEach(synchronizedConsumer), results -> null);
+    }
+
+    @NotNull
+    public List<Database<V>> getShards() {
+        return this.shards;
+    }
+
+    @NotNull
+    private Database<V> shardOf(@NotNull String key) {
+        return this.shards.get(this.ring.shard(key));
+    }
+
+    @NotNull
+    private Map<Integer, Collection<String>> partition(@NotNull Collection<String> keys) {
+        Map<Integer, Collection<String>> partitions = new HashMap<>();
+        for (String key : keys) {
+            partitions.computeIfAbsent(this.ring.shard(key), shard -> new ArrayList<>()).add(key);
+        }
+
+        return partitions;
+    }
+
+    @NotNull
+    private CompletableFuture<Stream<V>> streamValues() {
+        return this.stream().thenApply(stream -> stream.map(DatabaseEntry::getEntry));
+    }
+
+    @NotNull
+    private <T, R> CompletableFuture<R> fanOut(@NotNull Function<Database<V>, CompletableFuture<T>> operation,
+                                               @NotNull Function<List<T>, R> combiner) {
+        return this.fanOut(this.shards, operation, combiner);
+    }
+
+    @NotNull
+    private <T, R> CompletableFuture<R> fanOut(@NotNull Collection<Database<V>> targets, @NotNull Function<Database<V>, CompletableFuture<T>> operation,
+                                               @NotNull Function<List<T>, R> combiner) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(targets.size());
+        for (Database<V> shard : targets) {
+            futures.add(operation.apply(shard));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<T> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+
+            return combiner.apply(results);
+        });
+    }
+
+    @NotNull
+    private static <T> List<T> concat(@NotNull List<? extends Collection<T>> results) {
+        List<T> merged = new ArrayList<>();
+        for (Collection<T> result : results) {
+            merged.addAll(result);
+        }
+
+        return merged;
+    }
+
+    /**
+     * Merges the sorted results of the shards by repeatedly taking the smallest head of all results.
+     */
+    @NotNull
+    private static <T> List<T> merge(@NotNull List<? extends Collection<T>> results, @NotNull Comparator<T> comparator, int limit) {
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(Math.max(1, results.size()), (left, right) -> comparator.compare(left.head, right.head));
+        for (Collection<T> result : results) {
+            Iterator<T> iterator = result.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Cursor<>(iterator));
+            }
+        }
+
+        List<T> merged = new ArrayList<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor<T> cursor = heads.poll();
+            merged.add(cursor.head);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        return merged;
+    }
+
+    private static final class Cursor<T> {
+
+        private Cursor(@NotNull Iterator<T> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        private final Iterator<T> iterator;
+
+        private T head;
+
+        private boolean advance() {
+            if (!this.iterator.hasNext()) {
+                return false;
+            }
+
+            this.head = this.iterator.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.shard;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.DatabaseProvider;
+import com.github.derklaro.database.api.connection.ConnectionConfiguration;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.mysql.connection.MySQLConnectionProvider;
+import com.github.derklaro.database.mysql.util.DatabaseExecutors;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Spreads every database over several providers, see {@link ShardedDatabase}. Keys are assigned to shards by
+ * consistent hashing over the shard names, so the names have to stay the same between restarts.
+ */
+public class ShardedDatabaseProvider implements DatabaseProvider {
+
+    private static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final Map<String, ShardedDatabase<? extends DatabaseObject>> databases = new ConcurrentHashMap<>();
+
+    private final List<DatabaseProvider> shards;
+
+    private final ConsistentHashRing ring;
+
+    // the executors created for the shards by connect, they are shut down together with the connections
+    private final Collection<ExecutorService> executors;
+
+    public ShardedDatabaseProvider(@NotNull Map<String, ? extends DatabaseProvider> shards) {
+        this(shards, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ShardedDatabaseProvider(@NotNull Map<String, ? extends DatabaseProvider> shards, int virtualNodes) {
+        this(shards, virtualNodes, Collections.emptyList());
+    }
+
+    private ShardedDatabaseProvider(@NotNull Map<String, ? extends DatabaseProvider> shards, int virtualNodes,
+                                    @NotNull Collection<ExecutorService> executors) {
+        this.shards = new ArrayList<>(shards.values());
+        this.ring = new ConsistentHashRing(new ArrayList<>(shards.keySet()), virtualNodes);
+        this.executors = executors;
+    }
+
+    /**
+     * Connects to every configuration using its own connection pool, the shards are named by host, port and target
+     * database. Every shard gets its own executor sized to its connection pool, so a slow shard cannot starve the others.
+     * Completes exceptionally and closes all opened connections if one of the shards is not reachable.
+     */
+    @NotNull
+    public static CompletableFuture<ShardedDatabaseProvider> connect(@NotNull MySQLConnectionProvider connectionProvider,
+                                                                     @NotNull List<ConnectionConfiguration> configurations) {
+        Map<String, ConnectionConfiguration> named = new LinkedHashMap<>();
+        for (ConnectionConfiguration configuration : configurations) {
+            String name = configuration.getHost() + ":" + configuration.getPort() + "/" + configuration.getTargetDatabase();
+            if (named.put(name, configuration) != null) {
+                throw new IllegalArgumentException("Duplicate shard " + name);
+            }
+        }
+
+        Collection<ExecutorService> executors = new ArrayList<>(named.size());
+        Map<String, CompletableFuture<Optional<DatabaseProvider>>> connections = new LinkedHashMap<>();
+        for (Map.Entry<String, ConnectionConfiguration> entry : named.entrySet()) {
+            ExecutorService executor = DatabaseExecutors.newBoundedExecutor(MySQLConnectionProvider.MAXIMUM_POOL_SIZE);
+            executors.add(executor);
+
+            CompletableFuture<Optional<DatabaseProvider>> connection;
+            try {
+                connection = connectionProvider.connect(entry.getValue(), executor);
+            } catch (final RuntimeException exception) {
+                // the connections which were already started are closed with the others once all of them completed
+                connection = new CompletableFuture<>();
+                connection.completeExceptionally(exception);
+            }
+
+            connections.put(entry.getKey(), connection);
+        }
+
+        return CompletableFuture.allOf(connections.values().toArray(new CompletableFuture[0])).handle((result, throwable) -> {
+            Map<String, DatabaseProvider> shards = new LinkedHashMap<>();
+            Collection<String> failed = new ArrayList<>();
+            for (Map.Entry<String, CompletableFuture<Optional<DatabaseProvider>>> connection : connections.entrySet()) {
+                Optional<DatabaseProvider> provider = connection.getValue().isCompletedExceptionally()
+                        ? Optional.empty()
+                        : connection.getValue().join();
+                if (provider.isPresent()) {
+                    shards.put(connection.getKey(), provider.get());
+                } else {
+                    failed.add(connection.getKey());
+                }
+            }
+
+            if (!failed.isEmpty()) {
+                closeAll(shards.values(), executors);
+                throw new IllegalStateException("Unable to connect to shards " + failed, throwable);
+            }
+
+            return new ShardedDatabaseProvider(shards, DEFAULT_VIRTUAL_NODES, executors);
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> isConnected() {
+        return this.fanOut(DatabaseProvider::isConnected).thenApply(results -> !results.contains(Boolean.FALSE));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> closeConnection() {
+        this.databases.clear();
+        return closeAll(this.shards, this.executors);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NotNull <V extends DatabaseObject> Database<V> getDatabase(@NotNull String name, @NotNull Class<V> type, @NotNull Supplier<V> factory) {
+        ShardedDatabase<? extends DatabaseObject> database = this.databases.get(name);
+        if (database == null) {
+            // opening the databases of the shards creates their tables, which blocks and must not hold a lock of the map.
+            // the shard providers return the same instances to concurrent calls, so a duplicate wrapper is harmless
+            List<Database<V>> databases = new ArrayList<>(this.shards.size());
+            for (DatabaseProvider shard : this.shards) {
+                databases.add(shard.getDatabase(name, type, factory));
+            }
+
+            ShardedDatabase<V> created = new ShardedDatabase<>(databases, this.ring);
+            database = this.databases.putIfAbsent(name, created);
+            if (database == null) {
+                return created;
+            }
+        }
+
+        return (Database<V>) database;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> existsDatabase(@NotNull String name) {
+        return this.fanOut(shard -> shard.existsDatabase(name)).thenApply(results -> results.contains(Boolean.TRUE));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> deleteDatabase(@NotNull String name) {
+        this.databases.remove(name);
+        return this.fanOut(shard -> shard.deleteDatabase(name)).thenApply(results -> results.contains(Boolean.TRUE));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> getDatabaseNames() {
+        return this.fanOut(DatabaseProvider::getDatabaseNames).thenApply(results -> {
+            Collection<String> names = new LinkedHashSet<>();
+            for (Collection<String> result : results) {
+                names.addAll(result);
+            }
+
+            return names;
+        });
+    }
+
+    @NotNull
+    public List<DatabaseProvider> getShards() {
+        return this.shards;
+    }
+
+    @NotNull
+    private static CompletableFuture<Boolean> closeAll(@NotNull Collection<DatabaseProvider> shards, @NotNull Collection<ExecutorService> executors) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(shards.size());
+        for (DatabaseProvider shard : shards) {
+            futures.add(shard.closeConnection());
+        }
+
+        // the shards close their connections on their executors, so those are shut down afterwards
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((result, throwable) -> executors.forEach(ExecutorService::shutdown))
+                .thenApply(ignored -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    @NotNull
+    private <T> CompletableFuture<List<T>> fanOut(@NotNull Function<DatabaseProvider, CompletableFuture<T>> operation) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(this.shards.size());
+        for (DatabaseProvider shard : this.shards) {
+            futures.add(operation.apply(shard));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<T> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+
+            return results;
+        });
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+public class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+
+    public ResultSetSpliterator(@NotNull Connection connection, @NotNull PreparedStatement statement,
+                                @NotNull ResultSet resultSet, @NotNull SQLExceptionFunction<ResultSet, T> mapper,
+                                @NotNull Runnable closeHandler) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+        this.closeHandler = closeHandler;
+    }
+
+    private final Connection connection;
+
+    private final PreparedStatement statement;
+
+    private final ResultSet resultSet;
+
+    private final SQLExceptionFunction<ResultSet, T> mapper;
+
+    private final Runnable closeHandler;
+
+    private boolean closed;
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (this.closed) {
+            return false;
+        }
+
+        try {
+            while (this.resultSet.next()) {
+                T result = this.mapper.apply(this.resultSet);
+                if (result != null) {
+                    action.accept(result);
+                    return true;
+                }
+            }
+        } catch (final SQLException exception) {
+            this.close();
+            throw new RuntimeException(exception);
+        } catch (final RuntimeException exception) {
+            // a failing mapper or action usually ends the stream without closing it, so the connection is released here
+            this.close();
+            throw exception;
+        }
+
+        this.close();
+        return false;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        try {
+            this.resultSet.close();
+            this.statement.close();
+        } catch (final SQLException exception) {
+            exception.printStackTrace();
+        } finally {
+            try {
+                this.connection.close();
+            } catch (final SQLException exception) {
+                exception.printStackTrace();
+            }
+
+            this.closeHandler.run();
+        }
+    }
+}
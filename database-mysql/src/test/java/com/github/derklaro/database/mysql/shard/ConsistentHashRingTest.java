@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 10_000;
+
+    private static final List<String> SHARDS = Arrays.asList("shard-0", "shard-1", "shard-2");
+
+    @Test
+    void keysMapToTheSameShardOnEveryRing() {
+        ConsistentHashRing first = new ConsistentHashRing(SHARDS, VIRTUAL_NODES);
+        ConsistentHashRing second = new ConsistentHashRing(SHARDS, VIRTUAL_NODES);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(first.shard("key-" + i), second.shard("key-" + i));
+        }
+    }
+
+    @Test
+    void keysAreSpreadOverAllShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(SHARDS, VIRTUAL_NODES);
+        int[] counts = new int[SHARDS.size()];
+        for (int i = 0; i < KEYS; i++) {
+            counts[ring.shard("key-" + i)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > KEYS / 5 && count < KEYS / 2, Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    void addingAShardOnlyMovesKeysToIt() {
+        List<String> grown = Arrays.asList("shard-0", "shard-1", "shard-2", "shard-3");
+        ConsistentHashRing before = new ConsistentHashRing(SHARDS, VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(grown, VIRTUAL_NODES);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "key-" + i;
+            if (before.shard(key) != after.shard(key)) {
+                assertEquals(3, after.shard(key), key);
+                moved++;
+            }
+        }
+
+        // roughly a quarter of the keys belongs to the new shard, a modulo would have moved three quarters
+        assertTrue(moved > KEYS / 8 && moved < KEYS * 3 / 8, String.valueOf(moved));
+    }
+
+    @Test
+    void removingAShardOnlyMovesItsKeys() {
+        List<String> shrunk = Arrays.asList("shard-0", "shard-2");
+        ConsistentHashRing before = new ConsistentHashRing(SHARDS, VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(shrunk, VIRTUAL_NODES);
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "key-" + i;
+            String owner = SHARDS.get(before.shard(key));
+            if (!owner.equals("shard-1")) {
+                assertEquals(owner, shrunk.get(after.shard(key)), key);
+            }
+        }
+    }
+
+    @Test
+    void invalidRingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(Collections.emptyList(), VIRTUAL_NODES));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(SHARDS, 0));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) Pasqual Koschmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.derklaro.database.mysql.shard;
+
+import com.github.derklaro.database.api.Database;
+import com.github.derklaro.database.api.buffer.DataBuffer;
+import com.github.derklaro.database.api.objects.DatabaseEntry;
+import com.github.derklaro.database.api.objects.DatabaseObject;
+import com.github.derklaro.database.api.query.DatabasePage;
+import com.github.derklaro.database.api.query.DatabaseQuery;
+import com.github.derklaro.database.memory.MemoryDatabaseProvider;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedDatabaseTest {
+
+    private static final List<String> SHARDS = Arrays.asList("shard-0", "shard-1", "shard-2");
+
+    private final ConsistentHashRing ring = new ConsistentHashRing(SHARDS, 160);
+
+    private final List<Database<TestObject>> shards = new ArrayList<>();
+
+    // the keys in insertion order and in code point order
+    private final List<String> inserted = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+
+    private ShardedDatabase<TestObject> database;
+
+    @BeforeEach
+    void openShards() {
+        for (int i = 0; i < SHARDS.size(); i++) {
+            this.shards.add(new MemoryDatabaseProvider().getDatabase("test", TestObject.class, TestObject::new));
+        }
+
+        this.database = new ShardedDatabase<>(this.shards, this.ring);
+        for (int i = 0; i < 100; i++) {
+            this.inserted.add("key-" + i);
+        }
+
+        // keys which are ordered differently by utf-16 units and by code points
+        this.inserted.add("\uE000");
+        this.inserted.add(new String(Character.toChars(0x1F600)));
+        for (int i = 0; i < this.inserted.size(); i++) {
+            // identifiers counting down make the numeric order the reverse of the insertion order
+            String key = this.inserted.get(i);
+            this.database.insert(key, String.valueOf(this.inserted.size() - i), new TestObject(key)).join();
+        }
+
+        this.keys.addAll(this.inserted);
+        this.keys.sort(DatabaseQuery::compareCodePoints);
+    }
+
+    @Test
+    void entriesAreStoredOnTheirShardOnly() {
+        for (String key : this.keys) {
+            int owner = this.ring.shard(key);
+            for (int shard = 0; shard < this.shards.size(); shard++) {
+                assertEquals(shard == owner, this.shards.get(shard).get(key, null).join().isPresent(), key);
+            }
+        }
+
+        assertEquals(this.keys.size(), (long) this.database.getSize().join());
+    }
+
+    @Test
+    void orderedQueriesMergeTheShardsInOrder() {
+        DatabaseQuery query = DatabaseQuery.query().order(DatabaseQuery.Order.KEY_ASCENDING).limit(20);
+        assertEquals(this.keys.subList(0, 20), keys(this.database.query(query).join()));
+
+        query = DatabaseQuery.query().order(DatabaseQuery.Order.KEY_DESCENDING);
+        List<String> descending = new ArrayList<>(this.keys);
+        descending.sort((left, right) -> DatabaseQuery.compareCodePoints(right, left));
+        assertEquals(descending, keys(this.database.query(query).join()));
+    }
+
+    @Test
+    void sortByIdentifierMergesTheNumericOrder() {
+        List<String> values = this.database.sortByIdentifier(10).join().stream().map(object -> object.value).collect(Collectors.toList());
+        List<String> expected = new ArrayList<>(this.inserted);
+        // the last inserted key has the smallest identifier
+        Collections.reverse(expected);
+        assertEquals(expected.subList(0, 10), values);
+    }
+
+    @Test
+    void pagesFollowTheCodePointOrderAcrossShards() {
+        List<String> paged = new ArrayList<>();
+        String afterKey = null;
+        do {
+            DatabasePage<TestObject> page = this.database.page(afterKey, 7).join();
+            assertTrue(page.getEntries().size() <= 7);
+            paged.addAll(keys(page.getEntries()));
+            afterKey = page.getNextKey();
+        } while (afterKey != null);
+
+        assertEquals(this.keys, paged);
+    }
+
+    @NotNull
+    private String insertedKey(int index) {
+        return index < 100 ? "key-" + index : index == 100 ? "" : new String(Character.toChars(0x1F600));
+    }
+
+    @NotNull
+    private static List<String> keys(@NotNull Collection<DatabaseEntry<TestObject>> entries) {
+        return entries.stream().map(DatabaseEntry::getKey).collect(Collectors.toList());
+    }
+
+    static final class TestObject implements DatabaseObject {
+
+        TestObject() {
+        }
+
+        TestObject(@NotNull String value) {
+            this.value = value;
+        }
+
+        String value;
+
+        @Override
+        public void serialize(@NotNull DataBuffer buffer) {
+            buffer.putString(this.value);
+        }
+
+        @Override
+        public void deserialize(@NotNull DataBuffer buffer) {
+            this.value = buffer.readString();
+        }
+    }
+}